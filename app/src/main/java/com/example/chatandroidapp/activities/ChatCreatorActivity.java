@@ -5,37 +5,82 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.chatandroidapp.adapters.UsersAdapter;
+import com.example.chatandroidapp.database.ContactSearchIndex;
+import com.example.chatandroidapp.database.ContactStore;
+import com.example.chatandroidapp.database.UserDirectory;
 import com.example.chatandroidapp.databinding.ActivityChatCreatorBinding;
+import com.example.chatandroidapp.interfaces.SearchableView;
 import com.example.chatandroidapp.models.Message;
 import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AppExecutors;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * ChatCreatorActivity allows the user to select contacts to start a chat.
+ * Contacts are rendered at once from the on-device ContactStore, after which only the users changed since
+ * the stored updatedAt watermark are fetched. Since deleted users and documents without updatedAt never show up in
+ * that sync, the whole directory is listed again at most once a week and stored contacts it no longer holds are dropped.
+ * Until a first complete sync has finished, contacts are loaded page by page in first-name order as the user scrolls,
+ * so the first page shows quickly however many users exist.
+ * Searching is served by a ContactSearchIndex maintained off the main thread: loaded pages are appended to it,
+ * while changes to known contacts rebuild it. Starting a search loads the rest of the directory, so it covers every user.
  * Instead of creating the chat immediately, it passes the selected users to the MessagingActivity for further processing.
  */
-public class ChatCreatorActivity extends AppCompatActivity implements UsersAdapter.OnUserSelectedListener {
+public class ChatCreatorActivity extends AppCompatActivity implements UsersAdapter.OnUserSelectedListener, SearchableView {
     public static final String KEY_SELECTED_USERS_LIST = "selectedUsers";
     public static final String KEY_INITIAL_MESSAGE = "initialMessage";
     private static final String TAG = "CHAT_CREATOR_ACTIVITY";
-    private final List<User> userList = new ArrayList<>();
-    private final List<User> selectedUsers = new ArrayList<>();
+    private static final int CONTACTS_PAGE_SIZE = 30; // Contacts fetched per page
+    private static final int SEARCH_PAGE_SIZE = 200; // Contacts fetched per page while a search loads the rest of the directory
+    private static final int PAGE_PREFETCH_DISTANCE = 10; // Rows from the end at which the next page is requested
+    private static final long RECONCILE_INTERVAL_MILLIS = 7 * 24 * 60 * 60 * 1000L; // Minimum time between two full reconciliations
+    private static final Comparator<User> CONTACT_ORDER = (first, second) -> {
+        int byFirstName = String.valueOf(first.firstName).compareTo(String.valueOf(second.firstName));
+        return byFirstName != 0 ? byFirstName : first.id.compareTo(second.id);
+    }; // Matches the first-name order of Firestore pages and the ContactStore
+    private final List<User> contactList = new ArrayList<>(); // Every loaded contact, in first-name order
+    private final List<User> userList = new ArrayList<>(); // The contacts shown, either all of them or the search results
+    private final Map<String, User> selectedUsers = new LinkedHashMap<>(); // Selected users keyed by ID
     private ActivityChatCreatorBinding binding;
     private UsersAdapter userAdapter;
     private PreferenceManager preferenceManager;
     private String currentUserId;
+    private ContactStore contactStore;
+    private DocumentSnapshot lastContactSnapshot; // Cursor after the last loaded page
+    private Timestamp listingWatermark; // Newest updatedAt in the directory when paging through it started
+    private boolean isLoadingPage = false; // Prevents concurrent page requests
+    private boolean hasMoreContacts = true; // False once a short page was returned
+    private ContactSearchIndex searchIndex = ContactSearchIndex.build(new ArrayList<>()); // Index over contactList
+    private int indexGeneration = 0; // Discards indexes built from an outdated contact list
+    private boolean isRebuildingIndex = false; // True while the newest rebuilt index is not installed yet
+    private int searchGeneration = 0; // Discards results of superseded queries
+    private String searchQuery = "";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -53,8 +98,9 @@ public class ChatCreatorActivity extends AppCompatActivity implements UsersAdapt
             return;
         }
 
+        contactStore = ContactStore.getInstance(getApplicationContext());
         setupUI();
-        loadUsersFromFirestore();
+        loadContacts();
     }
 
     /**
@@ -67,60 +113,499 @@ public class ChatCreatorActivity extends AppCompatActivity implements UsersAdapt
         binding.usersRecyclerview.setLayoutManager(new LinearLayoutManager(this));
         userAdapter = new UsersAdapter(userList, this);
         binding.usersRecyclerview.setAdapter(userAdapter);
+        binding.usersRecyclerview.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && !isSearching() && isNearEndOfList()) {
+                    loadNextContactsPage();
+                }
+            }
+        });
+
+        binding.searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                filterData(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                filterData(newText);
+                return true;
+            }
+        });
 
         toggleProgressBar(false, null);
     }
 
     /**
-     * Loads the list of users from Firestore.
+     * Renders the contacts stored on the device and fetches the users changed since the last sync.
+     * Falls back to paging through the whole directory if no complete sync has finished yet.
      */
-    private void loadUsersFromFirestore() {
+    private void loadContacts() {
         toggleProgressBar(true, "Loading contacts...");
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            final List<User> stored = contactStore.loadAll();
+            final Timestamp watermark = contactStore.getWatermark();
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (watermark == null) {
+                    loadNextContactsPage();
+                    return;
+                }
+                toggleProgressBar(false, null);
+                hasMoreContacts = false; // The stored directory is complete
+                mergeContacts(stored);
+                rebuildSearchIndex();
+                syncChangedContacts(watermark, null);
+            });
+        });
+    }
 
-        FirebaseFirestore.getInstance().collection(Constants.KEY_COLLECTION_USERS)
+    /**
+     * Fetches the users changed after the watermark in pages, stores them and merges them into the list.
+     * The stored watermark advances with each page, so an interrupted sync resumes where it stopped.
+     * The search index is rebuilt once the sync ends rather than after every page.
+     *
+     * @param watermark The updatedAt of the newest stored change.
+     * @param cursor    The last document of the previous page in this sync, or null for the first page.
+     */
+    private void syncChangedContacts(Timestamp watermark, DocumentSnapshot cursor) {
+        Query query = FirebaseFirestore.getInstance().collection(Constants.KEY_COLLECTION_USERS)
+                .whereGreaterThan(Constants.KEY_UPDATED_AT, watermark)
+                .orderBy(Constants.KEY_UPDATED_AT);
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+        query.limit(CONTACTS_PAGE_SIZE)
                 .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    toggleProgressBar(false, null);
-
-                    if (queryDocumentSnapshots.isEmpty()) {
-                        Log.d(TAG, "loadUsersFromFirestore: No users found in Firestore.");
-                        binding.textProgressMessage.setVisibility(View.VISIBLE);
-                        binding.textProgressMessage.setText("No contacts found.");
+                .addOnSuccessListener(page -> {
+                    if (page.isEmpty()) {
+                        if (cursor != null) {
+                            rebuildSearchIndex();
+                        }
+                        showEmptyStateIfNeeded();
+                        reconcileContactsIfDue();
                         return;
                     }
+                    final List<User> changedUsers = toUsers(page);
+                    final DocumentSnapshot lastDocument = page.getDocuments().get(page.size() - 1);
+                    final Timestamp newWatermark = lastDocument.getTimestamp(Constants.KEY_UPDATED_AT);
+                    AppExecutors.getInstance().diskIO().execute(() -> contactStore.upsert(changedUsers, newWatermark));
 
-                    populateUserList(queryDocumentSnapshots);
+                    UserDirectory userDirectory = UserDirectory.getInstance();
+                    for (User user : changedUsers) {
+                        userDirectory.putUser(user);
+                    }
+                    mergeContacts(changedUsers);
+
+                    if (page.size() == CONTACTS_PAGE_SIZE) {
+                        syncChangedContacts(watermark, lastDocument);
+                    } else {
+                        rebuildSearchIndex();
+                        showEmptyStateIfNeeded();
+                        reconcileContactsIfDue();
+                    }
                 })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "loadUsersFromFirestore: Failed to fetch users.", e);
-                    toggleProgressBar(false, null);
-                    binding.textProgressMessage.setVisibility(View.VISIBLE);
-                    binding.textProgressMessage.setText("Failed to load contacts. Please try again.");
-                    Utilities.showToast(this, "Failed to load users: " + e.getMessage(), Utilities.ToastType.ERROR);
+                    Log.w(TAG, "syncChangedContacts: Failed to fetch changed users.", e);
+                    if (cursor != null) {
+                        rebuildSearchIndex(); // Index the pages merged before the failure
+                    }
                 });
     }
 
     /**
-     * Populates the user list with data fetched from Firestore.
+     * Starts a full reconciliation of the stored contacts once the last one is older than the reconcile interval.
+     */
+    private void reconcileContactsIfDue() {
+        long lastReconcile = preferenceManager.getLong(Constants.KEY_LAST_CONTACTS_RECONCILE, 0L);
+        if (System.currentTimeMillis() - lastReconcile < RECONCILE_INTERVAL_MILLIS) {
+            return;
+        }
+        Set<String> knownIds = new HashSet<>();
+        for (User user : contactList) {
+            knownIds.add(user.id);
+        }
+        reconcileContacts(knownIds, new ArrayList<>(), null);
+    }
+
+    /**
+     * Lists the whole directory in document ID order, then stores every listed user and drops the known contacts
+     * it no longer holds. Only contacts known before the listing started are dropped, so a user created meanwhile
+     * is kept. Listed users also refresh contacts whose documents lack updatedAt and so escape the incremental sync.
      *
-     * @param queryDocumentSnapshots The result from Firestore query.
+     * @param knownIds The IDs of the contacts loaded when the reconciliation started.
+     * @param listed   The users listed by the previous pages.
+     * @param cursor   The last document of the previous page, or null for the first page.
      */
-    private void populateUserList(QuerySnapshot queryDocumentSnapshots) {
-        for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
+    private void reconcileContacts(Set<String> knownIds, List<User> listed, DocumentSnapshot cursor) {
+        Query query = FirebaseFirestore.getInstance().collection(Constants.KEY_COLLECTION_USERS)
+                .orderBy(FieldPath.documentId());
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+        query.limit(SEARCH_PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(page -> {
+                    listed.addAll(toUsers(page));
+                    if (page.size() == SEARCH_PAGE_SIZE) {
+                        reconcileContacts(knownIds, listed, page.getDocuments().get(page.size() - 1));
+                        return;
+                    }
+
+                    Set<String> missingIds = new HashSet<>(knownIds);
+                    for (User user : listed) {
+                        missingIds.remove(user.id);
+                    }
+                    final List<String> removedIds = new ArrayList<>(missingIds);
+                    AppExecutors.getInstance().diskIO().execute(() -> {
+                        contactStore.upsert(listed, null);
+                        contactStore.delete(removedIds);
+                    });
+                    preferenceManager.putLong(Constants.KEY_LAST_CONTACTS_RECONCILE, System.currentTimeMillis());
+                    Log.d(TAG, "reconcileContacts: Dropped " + removedIds.size() + " deleted users.");
+
+                    UserDirectory userDirectory = UserDirectory.getInstance();
+                    for (String userId : removedIds) {
+                        userDirectory.invalidate(userId);
+                    }
+                    for (User user : listed) {
+                        userDirectory.putUser(user);
+                    }
+                    removeContacts(removedIds);
+                    mergeContacts(listed);
+                    rebuildSearchIndex();
+                    showEmptyStateIfNeeded();
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "reconcileContacts: Failed to list users.", e)); // Retried on the next open
+    }
+
+    /**
+     * Loads the next page of contacts from Firestore, ordered by first name, and stores it on the device.
+     * Before the first page, the newest updatedAt in the directory is read as the watermark, so any change made
+     * while the listing runs is newer than it and fetched by the next sync.
+     * The watermark is only stored with the last page, once the whole directory is on disk.
+     * The first page shows the progress indicator; later pages load silently while the user scrolls,
+     * or one after another in larger pages while a search is active, so the search covers the whole directory.
+     */
+    private void loadNextContactsPage() {
+        if (isLoadingPage || !hasMoreContacts) {
+            return;
+        }
+        isLoadingPage = true;
+        final boolean isFirstPage = lastContactSnapshot == null;
+        if (isFirstPage) {
+            toggleProgressBar(true, "Loading contacts...");
+        }
+        if (listingWatermark == null) {
+            FirebaseFirestore.getInstance().collection(Constants.KEY_COLLECTION_USERS)
+                    .orderBy(Constants.KEY_UPDATED_AT, Query.Direction.DESCENDING)
+                    .limit(1)
+                    .get()
+                    .addOnSuccessListener(newest -> {
+                        Timestamp updatedAt = newest.isEmpty() ? null
+                                : newest.getDocuments().get(0).getTimestamp(Constants.KEY_UPDATED_AT);
+                        listingWatermark = updatedAt != null ? updatedAt : new Timestamp(0, 0);
+                        isLoadingPage = false;
+                        loadNextContactsPage();
+                    })
+                    .addOnFailureListener(e -> onContactsPageFailed(e, isFirstPage));
+            return;
+        }
+
+        Query query = FirebaseFirestore.getInstance().collection(Constants.KEY_COLLECTION_USERS)
+                .orderBy(Constants.KEY_FIRST_NAME);
+        if (!isFirstPage) {
+            query = query.startAfter(lastContactSnapshot);
+        }
+        final int pageSize = isSearching() ? SEARCH_PAGE_SIZE : CONTACTS_PAGE_SIZE;
+        query.limit(pageSize)
+                .get()
+                .addOnSuccessListener(page -> {
+                    isLoadingPage = false;
+                    if (isFirstPage) {
+                        toggleProgressBar(false, null);
+                    }
+                    hasMoreContacts = page.size() == pageSize;
+                    if (!page.isEmpty()) {
+                        lastContactSnapshot = page.getDocuments().get(page.size() - 1);
+                    }
+                    final List<User> pageUsers = toUsers(page);
+                    final Timestamp watermark = hasMoreContacts ? null : listingWatermark;
+                    AppExecutors.getInstance().diskIO().execute(() -> contactStore.upsert(pageUsers, watermark));
+                    appendContacts(pageUsers);
+
+                    if (!hasMoreContacts) {
+                        showEmptyStateIfNeeded();
+                    } else {
+                        // Keep loading after layout while searching or while the loaded contacts do not fill the screen
+                        binding.usersRecyclerview.post(() -> {
+                            if (isSearching() || isNearEndOfList()) {
+                                loadNextContactsPage();
+                            }
+                        });
+                    }
+                })
+                .addOnFailureListener(e -> onContactsPageFailed(e, isFirstPage));
+    }
+
+    /**
+     * Reports a failed page request and allows it to be retried.
+     *
+     * @param e           The cause of the failure.
+     * @param isFirstPage Whether the first page was requested.
+     */
+    private void onContactsPageFailed(Exception e, boolean isFirstPage) {
+        isLoadingPage = false;
+        Log.e(TAG, "loadNextContactsPage: Failed to fetch users.", e);
+        if (isFirstPage) {
+            toggleProgressBar(false, null);
+            binding.textProgressMessage.setVisibility(View.VISIBLE);
+            binding.textProgressMessage.setText("Failed to load contacts. Please try again.");
+        }
+        Utilities.showToast(this, "Failed to load users: " + e.getMessage(), Utilities.ToastType.ERROR);
+    }
+
+    /**
+     * Appends a page of users to the contact list and the search index, skipping the current user.
+     *
+     * @param users The users to append.
+     */
+    private void appendContacts(List<User> users) {
+        int insertPosition = contactList.size();
+        for (User user : users) {
+            if (!user.id.equals(currentUserId)) {
+                contactList.add(user);
+            }
+        }
+        if (contactList.size() == insertPosition) {
+            return;
+        }
+        if (!isSearching()) {
+            userList.addAll(contactList.subList(insertPosition, contactList.size()));
+            userAdapter.notifyItemRangeInserted(insertPosition, contactList.size() - insertPosition);
+        }
+        if (isRebuildingIndex) {
+            rebuildSearchIndex(); // The pending index is built from a list without this page
+        } else {
+            addToSearchIndex(new ArrayList<>(contactList.subList(insertPosition, contactList.size())));
+        }
+    }
+
+    /**
+     * Replaces or adds users in the contact list, skipping the current user, and restores first-name order.
+     * The caller rebuilds the search index, since replaced contacts cannot be updated in place.
+     *
+     * @param users The new or changed users.
+     */
+    private void mergeContacts(List<User> users) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < contactList.size(); i++) {
+            positions.put(contactList.get(i).id, i);
+        }
+        for (User user : users) {
+            if (user.id.equals(currentUserId)) {
+                continue;
+            }
+            Integer position = positions.get(user.id);
+            if (position != null) {
+                contactList.set(position, user);
+            } else {
+                positions.put(user.id, contactList.size());
+                contactList.add(user);
+            }
+            if (selectedUsers.containsKey(user.id)) {
+                selectedUsers.put(user.id, user);
+            }
+        }
+        Collections.sort(contactList, CONTACT_ORDER);
+        if (!isSearching()) {
+            showContacts(contactList);
+        }
+    }
+
+    /**
+     * Removes users from the contact list and the selection.
+     * The caller rebuilds the search index and shows the contacts, e.g. through mergeContacts.
+     *
+     * @param userIds The IDs of the users to remove.
+     */
+    private void removeContacts(List<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<String> removed = new HashSet<>(userIds);
+        Iterator<User> iterator = contactList.iterator();
+        while (iterator.hasNext()) {
+            if (removed.contains(iterator.next().id)) {
+                iterator.remove();
+            }
+        }
+        for (String userId : removed) {
+            selectedUsers.remove(userId);
+        }
+        binding.buttonStartChat.setEnabled(!selectedUsers.isEmpty());
+    }
+
+    // ============================== Contact Search ==============================
+
+    /**
+     * Filters the contacts by name, email or phone. An empty query shows every loaded contact again.
+     * A search started while the directory is being paged in loads its remaining pages.
+     *
+     * @param query The search query.
+     */
+    @Override
+    public void filterData(String query) {
+        searchQuery = query != null ? query.trim() : "";
+        if (isSearching()) {
+            runSearch();
+            if (lastContactSnapshot != null) {
+                loadNextContactsPage(); // Does nothing once the whole directory is loaded
+            }
+        } else {
+            searchGeneration++; // Drop results of queries still running
+            showContacts(contactList);
+            showEmptyStateIfNeeded();
+        }
+    }
+
+    /**
+     * Checks whether a search query is active.
+     *
+     * @return True if the shown contacts are search results.
+     */
+    private boolean isSearching() {
+        return !searchQuery.isEmpty();
+    }
+
+    /**
+     * Runs the current query against the search index on the computation executor and shows the results,
+     * unless a newer query was entered meanwhile.
+     */
+    private void runSearch() {
+        final int generation = ++searchGeneration;
+        final ContactSearchIndex index = searchIndex;
+        final String query = searchQuery;
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.computation().execute(() -> {
+            final List<User> results = index.search(query);
+            executors.mainThread().execute(() -> {
+                if (generation != searchGeneration || isDestroyed()) {
+                    return;
+                }
+                showContacts(results);
+                if (results.isEmpty()) {
+                    binding.textProgressMessage.setVisibility(View.VISIBLE);
+                    binding.textProgressMessage.setText(hasMoreContacts ? "Searching all contacts..." : "No matching contacts.");
+                }
+            });
+        });
+    }
+
+    /**
+     * Rebuilds the search index from the loaded contacts on the computation executor,
+     * and reruns the active query against it once built.
+     */
+    private void rebuildSearchIndex() {
+        final int generation = ++indexGeneration;
+        isRebuildingIndex = true;
+        final List<User> snapshot = new ArrayList<>(contactList);
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.computation().execute(() -> {
+            final ContactSearchIndex index = ContactSearchIndex.build(snapshot);
+            executors.mainThread().execute(() -> {
+                if (generation != indexGeneration || isDestroyed()) {
+                    return;
+                }
+                searchIndex = index;
+                isRebuildingIndex = false;
+                if (isSearching()) {
+                    runSearch();
+                }
+            });
+        });
+    }
+
+    /**
+     * Appends contacts to the current search index on the computation executor,
+     * and reruns the active query once they are indexed.
+     *
+     * @param users The contacts appended to the contact list.
+     */
+    private void addToSearchIndex(List<User> users) {
+        final ContactSearchIndex index = searchIndex;
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.computation().execute(() -> {
+            index.add(users);
+            executors.mainThread().execute(() -> {
+                if (index != searchIndex || isDestroyed()) {
+                    return;
+                }
+                if (isSearching()) {
+                    runSearch();
+                }
+            });
+        });
+    }
+
+    /**
+     * Replaces the shown contacts.
+     *
+     * @param users The contacts to show.
+     */
+    private void showContacts(List<User> users) {
+        userList.clear();
+        userList.addAll(users);
+        userAdapter.notifyDataSetChanged();
+        if (!userList.isEmpty()) {
+            binding.textProgressMessage.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * Converts the documents of a Firestore page to users.
+     *
+     * @param page The page returned by the Firestore query.
+     * @return The users, in page order.
+     */
+    private static List<User> toUsers(QuerySnapshot page) {
+        List<User> users = new ArrayList<>();
+        for (DocumentSnapshot document : page.getDocuments()) {
             User user = document.toObject(User.class);
-            if (user != null && !user.id.equals(currentUserId)) {
-                userList.add(user);
+            if (user != null && user.id != null) {
+                users.add(user);
             }
         }
+        return users;
+    }
 
-        if (userList.isEmpty()) {
+    /**
+     * Shows the empty-state message if the directory holds no other users.
+     */
+    private void showEmptyStateIfNeeded() {
+        if (contactList.isEmpty()) {
+            Log.d(TAG, "showEmptyStateIfNeeded: No contacts found.");
             binding.textProgressMessage.setVisibility(View.VISIBLE);
             binding.textProgressMessage.setText("No contacts available.");
-        } else {
-            userAdapter.notifyDataSetChanged();
         }
     }
 
+    /**
+     * Checks whether the last visible contact is within the prefetch distance of the end of the list.
+     *
+     * @return True if the next page should be requested.
+     */
+    private boolean isNearEndOfList() {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) binding.usersRecyclerview.getLayoutManager();
+        return layoutManager != null
+                && layoutManager.findLastVisibleItemPosition() >= userList.size() - 1 - PAGE_PREFETCH_DISTANCE;
+    }
+
     /**
      * Toggles the visibility of the progress bar and process message.
      *
@@ -149,7 +634,7 @@ public class ChatCreatorActivity extends AppCompatActivity implements UsersAdapt
 
             // Create an intent and add the selected users as a Serializable list
             Intent intent = new Intent(this, MessagingActivity.class);
-            intent.putExtra(KEY_SELECTED_USERS_LIST, new ArrayList<>(selectedUsers));
+            intent.putExtra(KEY_SELECTED_USERS_LIST, new ArrayList<>(selectedUsers.values()));
             intent.putExtra(KEY_INITIAL_MESSAGE, message);
             startActivity(intent);
             finish();
@@ -170,9 +655,9 @@ public class ChatCreatorActivity extends AppCompatActivity implements UsersAdapt
     @Override
     public void onUserSelected(User user, boolean selected) {
         if (selected) {
-            selectedUsers.add(user);
+            selectedUsers.put(user.id, user);
         } else {
-            selectedUsers.remove(user);
+            selectedUsers.remove(user.id);
         }
 
         Log.d(TAG, "onUserSelected: Selected users count = " + selectedUsers.size());
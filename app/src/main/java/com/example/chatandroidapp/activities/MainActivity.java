@@ -12,11 +12,14 @@ import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 
 import com.example.chatandroidapp.R;
+import com.example.chatandroidapp.database.AvatarMigration;
+import com.example.chatandroidapp.database.MessageStore;
 import com.example.chatandroidapp.databinding.ActivityMainBinding;
 import com.example.chatandroidapp.fragments.ChatsFragment;
 import com.example.chatandroidapp.fragments.ProfileFragment;
 import com.example.chatandroidapp.fragments.TasksFragment;
 import com.example.chatandroidapp.interfaces.SearchableView;
+import com.example.chatandroidapp.utilities.AppExecutors;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
@@ -49,7 +52,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Initializes shared preferences and assigns Firebase token to the user.
+     * Initializes shared preferences, assigns Firebase token to the user and migrates the user's inline avatar if needed.
      */
     private void initializeComponents() {
         preferenceManager = PreferenceManager.getInstance(getApplicationContext());
@@ -59,6 +62,7 @@ public class MainActivity extends AppCompatActivity {
             showErrorAndFinish("User not authenticated. Please sign in.");
         } else {
             assignFirebaseTokenToUser(userId);
+            AvatarMigration.getInstance(getApplicationContext()).migrateIfNeeded();
         }
     }
 
@@ -192,6 +196,8 @@ public class MainActivity extends AppCompatActivity {
     private void showErrorAndFinish(String message) {
         Utilities.showToast(this, message, Utilities.ToastType.ERROR);
         preferenceManager.clear();
+        MessageStore messageStore = MessageStore.getInstance(getApplicationContext());
+        AppExecutors.getInstance().diskIO().execute(messageStore::deleteAll); // No user is signed in to own them
         Log.e(TAG, message);
         finish();
     }
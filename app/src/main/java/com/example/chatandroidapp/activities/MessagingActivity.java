@@ -1,33 +1,59 @@
 package com.example.chatandroidapp.activities;
 
 import android.content.Intent;
+import android.graphics.Typeface;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextWatcher;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.StyleSpan;
 import android.view.View;
+import android.widget.ArrayAdapter;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.chatandroidapp.R;
 import com.example.chatandroidapp.adapters.MessagesAdapter;
+import com.example.chatandroidapp.database.ContactStore;
+import com.example.chatandroidapp.database.MessageStore;
+import com.example.chatandroidapp.database.UserDirectory;
 import com.example.chatandroidapp.databinding.ActivityMessagingBinding;
+import com.example.chatandroidapp.databinding.DialogMessageSearchBinding;
 import com.example.chatandroidapp.models.Chat;
 import com.example.chatandroidapp.models.Message;
 import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AppExecutors;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.WriteBatch;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -35,8 +61,16 @@ import java.util.Set;
  * receiving, and deleting messages in real-time, along with chat and participant management.
  */
 public class MessagingActivity extends AppCompatActivity {
+    private static final int LIVE_WINDOW_SIZE = 50; // Newest messages kept under the real-time listener
+    private static final int HISTORY_PAGE_SIZE = 50; // Messages fetched per scroll-back (or scroll-forward) page
+    private static final int MAX_LOADED_MESSAGES = 300; // Upper bound of messages held in memory
+    private static final int PAGE_PREFETCH_DISTANCE = 5; // Rows from either end that trigger loading the next page
+    private static final int SEARCH_RESULT_LIMIT = 50; // Most search results shown at once
+    private static final int JUMP_WINDOW_HALF = 25; // Messages loaded on each side of a search result jumped to
+
     private final List<Message> messageList = new ArrayList<>(); // List of messages in the chat
     private final List<User> userList = new ArrayList<>(); // List of users in the chat
+    private final Map<String, Timestamp> sentTimestamps = new HashMap<>(); // Exact server timestamps used as page cursors
 
     private ActivityMessagingBinding binding;
     private FirebaseFirestore database;
@@ -45,6 +79,16 @@ public class MessagingActivity extends AppCompatActivity {
     private Chat currentChat = null; // Current chat details
     private MessagesAdapter messagesAdapter;
     private ListenerRegistration messagesListener; // Listener for real-time updates
+    private MessageStore messageStore; // On-device store of received messages
+    private UserDirectory userDirectory; // App-wide cache of chat participants
+    private boolean isAwaitingServerSnapshot = false; // Whether the live listener has not delivered a server snapshot yet
+    private int liveWindowGeneration = 0; // Incremented per live listener, so checks made for a replaced one are discarded
+    private int historyCount = 0; // Leading messages of messageList loaded as pages, outside the live window
+    private int pendingCount = 0; // Trailing messages of messageList sent optimistically, not yet seen by the live listener
+    private boolean hasOlderMessages = true; // Whether older pages may exist before the first loaded message
+    private boolean hasNewerMessages = false; // Whether newer pages exist after the last loaded message (live window detached)
+    private boolean isLoadingPage = false; // Prevents concurrent page requests
+    private int searchGeneration = 0; // Incremented per search query, so results of stale queries are discarded
 
     // ============================== Lifecycle Methods ==============================
 
@@ -84,10 +128,26 @@ public class MessagingActivity extends AppCompatActivity {
         showLoading(true, "initializing...");
         database = FirebaseFirestore.getInstance();
         preferenceManager = PreferenceManager.getInstance(getApplicationContext());
+        messageStore = MessageStore.getInstance(getApplicationContext());
+        userDirectory = UserDirectory.getInstance();
         messagesAdapter = new MessagesAdapter(messageList, this);
 
         binding.messagesRecyclerview.setLayoutManager(new LinearLayoutManager(this));
         binding.messagesRecyclerview.setAdapter(messagesAdapter);
+        binding.messagesRecyclerview.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager == null) {
+                    return;
+                }
+                if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= PAGE_PREFETCH_DISTANCE) {
+                    loadOlderMessages();
+                } else if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= messageList.size() - 1 - PAGE_PREFETCH_DISTANCE) {
+                    loadNewerMessages();
+                }
+            }
+        });
     }
 
     /**
@@ -97,6 +157,7 @@ public class MessagingActivity extends AppCompatActivity {
         Intent intent = getIntent();
         if (intent.hasExtra(Constants.KEY_ID)) {
             chatId = intent.getStringExtra(Constants.KEY_ID);
+            loadStoredMessages();
             fetchChatDetails();
         } else if (intent.hasExtra(ChatCreatorActivity.KEY_SELECTED_USERS_LIST)) {
             handleNewChat(intent);
@@ -112,12 +173,40 @@ public class MessagingActivity extends AppCompatActivity {
     private void setListeners() {
         binding.buttonBack.setOnClickListener(v -> onBackPressed());
         binding.buttonSendMessage.setOnClickListener(v -> handleSendMessage());
+        binding.buttonSearchMessages.setOnClickListener(v -> showMessageSearch());
         binding.buttonShowChatInfo.setOnClickListener(v -> showChatInfo());
         binding.buttonDeleteChat.setOnClickListener(v -> deleteChat());
     }
 
     // ============================== Handling Existing Chats ==============================
 
+    /**
+     * Renders the newest messages of the chat from the on-device store, then starts listening
+     * for the messages sent after the newest stored one. Runs in parallel with fetching the chat details,
+     * so the conversation shows without waiting for any network round trip.
+     */
+    private void loadStoredMessages() {
+        final String storedChatId = chatId;
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            List<MessageStore.Entry> stored = messageStore.loadLatest(storedChatId, LIVE_WINDOW_SIZE);
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (isDestroyed()) {
+                    return;
+                }
+                List<Message> messages = rememberEntries(stored);
+                messageList.addAll(0, messages);
+                historyCount = messages.size();
+                messagesAdapter.notifyItemRangeInserted(0, messages.size());
+                if (!messageList.isEmpty()) {
+                    binding.messagesRecyclerview.scrollToPosition(messageList.size() - 1);
+                }
+
+                Timestamp newestStored = stored.isEmpty() ? null : stored.get(stored.size() - 1).sentTimestamp;
+                listenForMessages(newestStored);
+            });
+        });
+    }
+
     /**
      * Fetches chat details from Firestore.
      */
@@ -150,6 +239,8 @@ public class MessagingActivity extends AppCompatActivity {
 
     /**
      * Fetches user details based on a list of user IDs and populates the userList.
+     * Participants are loaded in the background through the UserDirectory, in parallel whereIn chunks,
+     * so messages are shown without waiting for them; message rows resolve their own senders as they are bound.
      * If a user ID does not correspond to an existing user (i.e., the user has deleted their account),
      * the user ID is removed from the chat's userIdList.
      *
@@ -161,41 +252,40 @@ public class MessagingActivity extends AppCompatActivity {
             return;
         }
 
-        showLoading(true, "fetching users details...");
-        userList.clear();
-
-        // Convert userIds to a Set for efficient removal
-        Set<String> remainingUserIds = new HashSet<>(userIds);
-
-        database.collection(Constants.KEY_COLLECTION_USERS)
-                .whereIn("id", userIds)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (DocumentSnapshot doc : queryDocumentSnapshots.getDocuments()) {
-                        User user = doc.toObject(User.class);
-                        if (user != null) {
-                            userList.add(user);
-                            remainingUserIds.remove(user.id); // Remove found user IDs
-                        }
+        userDirectory.loadUsers(userIds, new UserDirectory.OnUsersLoadedListener() {
+            @Override
+            public void onUsersLoaded(@NonNull Map<String, User> users, @NonNull Set<String> missingUserIds) {
+                userList.clear();
+                for (String userId : userIds) {
+                    User user = users.get(userId);
+                    if (user != null) {
+                        userList.add(user);
                     }
+                }
+
+                if (!missingUserIds.isEmpty()) {
+                    // Deleted accounts never show up in the contact sync, so drop them from the stored directory here
+                    final List<String> deletedUserIds = new ArrayList<>(missingUserIds);
+                    ContactStore contactStore = ContactStore.getInstance(getApplicationContext());
+                    AppExecutors.getInstance().diskIO().execute(() -> {
+                        for (String deletedUserId : deletedUserIds) {
+                            contactStore.delete(deletedUserId);
+                        }
+                    });
 
-                    List<String> missingUserIds = new ArrayList<>(remainingUserIds);
-
-                    if (!missingUserIds.isEmpty()) {
-                        currentChat.userIdList.removeAll(missingUserIds);
-                        updateChatUserIdsInFirestore(currentChat.userIdList, missingUserIds);
-                        // Optionally, notify the user about the removal
-                        String removedUsers = String.join(", ", missingUserIds);
-                        Utilities.showToast(this, "Removed users: " + removedUsers, Utilities.ToastType.WARNING);
-                    }
+                    currentChat.userIdList.removeAll(missingUserIds);
+                    updateChatUserIdsInFirestore(currentChat.userIdList, new ArrayList<>(missingUserIds));
+                    // Optionally, notify the user about the removal
+                    String removedUsers = String.join(", ", missingUserIds);
+                    Utilities.showToast(MessagingActivity.this, "Removed users: " + removedUsers, Utilities.ToastType.WARNING);
+                }
+            }
 
-                    showLoading(false, null);
-                    listenForMessages();
-                })
-                .addOnFailureListener(e -> {
-                    logCriticalError("Failed to fetch user details.", e);
-                    listenForMessages();
-                });
+            @Override
+            public void onFailure(@NonNull Exception e) {
+                logCriticalError("Failed to fetch user details.", e);
+            }
+        });
     }
 
     /**
@@ -244,38 +334,562 @@ public class MessagingActivity extends AppCompatActivity {
     // ============================== Messaging Functionality ==============================
 
     /**
-     * Listens for real-time messages in the current chat and updates the RecyclerView.
+     * Returns a reference to the messages subcollection of the current chat.
+     *
+     * @return The messages collection reference.
      */
-    private void listenForMessages() {
-        messagesListener = database.collection(Constants.KEY_COLLECTION_CHATS)
+    private CollectionReference messagesCollection() {
+        return database.collection(Constants.KEY_COLLECTION_CHATS)
                 .document(chatId)
-                .collection(Constants.KEY_COLLECTION_MESSAGES)
-                .orderBy("sentDate")
-                .addSnapshotListener((snapshots, e) -> {
+                .collection(Constants.KEY_COLLECTION_MESSAGES);
+    }
+
+    /**
+     * Listens for real-time messages in the current chat and updates the RecyclerView.
+     * Only the newest {@link #LIVE_WINDOW_SIZE} messages are kept under the listener; older history is
+     * loaded in pages as the user scrolls up. Only the document changes contained in each snapshot are
+     * applied to the message list, so the cost of an update depends on the size of the change.
+     *
+     * @param anchor If non-null, only messages sent after this timestamp are listened to
+     *               (used when attaching the live window below stored or already loaded history).
+     */
+    private void listenForMessages(@Nullable Timestamp anchor) {
+        isAwaitingServerSnapshot = true;
+        final int generation = ++liveWindowGeneration;
+        Query query = messagesCollection().orderBy("sentDate");
+        if (anchor != null) {
+            query = query.startAfter(anchor);
+        }
+
+        // Metadata changes are included in both the snapshots and their document changes, so the confirmation
+        // of a pending write arrives as a MODIFIED change of the message, even when its data did not change
+        messagesListener = query.limitToLast(LIVE_WINDOW_SIZE)
+                .addSnapshotListener(MetadataChanges.INCLUDE, (snapshots, e) -> {
                     if (e != null) {
                         logCriticalError("Failed to listen for messages.", e);
                         return;
                     }
 
                     if (snapshots != null) {
-                        showLoading(true, null);
-                        messageList.clear();
-                        for (DocumentSnapshot doc : snapshots.getDocuments()) {
-                            Message message = doc.toObject(Message.class);
-                            if (message != null) {
-                                messageList.add(message);
+                        if (isAwaitingServerSnapshot && !snapshots.getMetadata().isFromCache()) {
+                            if (anchor != null && historyCount > 0 && snapshots.size() == LIVE_WINDOW_SIZE) {
+                                // At least a full window arrived since the anchor; check whether it still connects
+                                verifyWindowConnects(anchor, snapshots.getDocuments().get(0).getId(), generation);
                             }
+                            isAwaitingServerSnapshot = false;
+                        }
+                        if (historyCount == 0) {
+                            // Older pages exist only if the live window is full
+                            hasOlderMessages = snapshots.size() == LIVE_WINDOW_SIZE;
                         }
-                        messagesAdapter.notifyDataSetChanged();
+                        applyMessageChanges(snapshots.getDocumentChanges(MetadataChanges.INCLUDE),
+                                snapshots.size() == LIVE_WINDOW_SIZE);
+                    }
+                });
+    }
 
-                        if (!messageList.isEmpty()) {
-                            binding.messagesRecyclerview.smoothScrollToPosition(messageList.size() - 1);
+    /**
+     * Applies a batch of document changes to the live window at the end of the message list and
+     * notifies the adapter with range notifications for the affected rows only.
+     * A message that was already rendered optimistically is swapped in place for its listener copy.
+     *
+     * @param changes    The document changes of a messages snapshot, in the order reported by Firestore.
+     * @param windowFull Whether the live window is full, in which case a removal of its oldest message
+     *                   means the message slid out of the window if the same snapshot adds a newer one.
+     */
+    private void applyMessageChanges(List<DocumentChange> changes, boolean windowFull) {
+        boolean messageAppended = false;
+        List<MessageStore.Entry> confirmedMessages = new ArrayList<>();
+        List<String> deletedMessageIds = new ArrayList<>();
+
+        for (DocumentChange change : changes) {
+            DocumentSnapshot document = change.getDocument();
+            switch (change.getType()) {
+                case ADDED: {
+                    Message message = document.toObject(Message.class);
+                    messagesAdapter.setMessagePending(message.id, document.getMetadata().hasPendingWrites());
+                    addIfConfirmed(confirmedMessages, message, rememberSentTimestamp(document));
+                    if (change.getNewIndex() == 0 && historyCount > 0
+                            && messageList.get(historyCount - 1).id.equals(message.id)) {
+                        historyCount--; // Already displayed as history; hand it back to the live window
+                        break;
+                    }
+                    int position = historyCount + change.getNewIndex();
+                    int optimisticPosition = indexOfPendingMessage(message.id);
+                    if (optimisticPosition != -1) {
+                        // Swap the optimistic copy for the listener copy, moving it if other messages came first
+                        pendingCount--;
+                        messageList.remove(optimisticPosition);
+                        messageList.add(position, message);
+                        if (optimisticPosition != position) {
+                            messagesAdapter.notifyItemMoved(optimisticPosition, position);
                         }
-                        showLoading(false, null);
+                        messagesAdapter.notifyItemChanged(position);
+                        break;
+                    }
+                    messageList.add(position, message);
+                    messagesAdapter.notifyItemInserted(position);
+                    messageAppended |= position == messageList.size() - 1 - pendingCount;
+                    break;
+                }
+                case MODIFIED: {
+                    // Also delivered when only the pending state changed, i.e. the server confirmed the write
+                    Message message = document.toObject(Message.class);
+                    messagesAdapter.setMessagePending(message.id, document.getMetadata().hasPendingWrites());
+                    addIfConfirmed(confirmedMessages, message, rememberSentTimestamp(document));
+                    int oldPosition = historyCount + change.getOldIndex();
+                    int newPosition = historyCount + change.getNewIndex();
+                    if (oldPosition == newPosition) {
+                        messageList.set(newPosition, message);
+                        messagesAdapter.notifyItemChanged(newPosition);
+                    } else {
+                        messageList.remove(oldPosition);
+                        messageList.add(newPosition, message);
+                        messagesAdapter.notifyItemMoved(oldPosition, newPosition);
+                        messagesAdapter.notifyItemChanged(newPosition);
+                    }
+                    break;
+                }
+                case REMOVED: {
+                    if (windowFull && change.getOldIndex() == 0
+                            && addsNewerMessage(changes, document.getTimestamp("sentDate"))) {
+                        historyCount++; // Slid out of the live window; keep displaying it as history
+                        break;
+                    }
+                    int position = historyCount + change.getOldIndex();
+                    sentTimestamps.remove(messageList.remove(position).id);
+                    messagesAdapter.setMessagePending(document.getId(), false);
+                    deletedMessageIds.add(document.getId());
+                    messagesAdapter.notifyItemRemoved(position);
+                    break;
+                }
+            }
+        }
+
+        persistMessageChanges(confirmedMessages, deletedMessageIds);
+
+        // Only follow the conversation when new messages arrive at the bottom
+        if (messageAppended) {
+            evictMessagesFromTop();
+            binding.messagesRecyclerview.smoothScrollToPosition(messageList.size() - 1);
+        }
+    }
+
+    // ============================== Paged Message History ==============================
+
+    /**
+     * Loads the page of messages preceding the first loaded message and prepends it to the list.
+     * The page is read from the on-device store when it holds a full page, otherwise from Firestore.
+     * Pages far below the viewport are evicted afterwards to keep memory bounded.
+     */
+    private void loadOlderMessages() {
+        if (isLoadingPage || !hasOlderMessages || messageList.isEmpty()) {
+            return;
+        }
+        final Timestamp cursor = sentTimestamps.get(messageList.get(0).id);
+        if (cursor == null) {
+            return;
+        }
+
+        isLoadingPage = true;
+        final String storedChatId = chatId;
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            List<MessageStore.Entry> stored = messageStore.loadBefore(storedChatId, cursor, HISTORY_PAGE_SIZE);
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (stored.size() < HISTORY_PAGE_SIZE) {
+                    fetchOlderMessages(cursor);
+                } else if (isFirstMessageAt(cursor)) {
+                    isLoadingPage = false;
+                    prependMessages(rememberEntries(stored));
+                    evictMessagesFromBottom();
+                } else {
+                    isLoadingPage = false;
+                }
+            });
+        });
+    }
+
+    /**
+     * Fetches the page of messages preceding the given cursor from Firestore and prepends it to the list.
+     *
+     * @param cursor The exact timestamp of the first loaded message.
+     */
+    private void fetchOlderMessages(Timestamp cursor) {
+        messagesCollection()
+                .orderBy("sentDate")
+                .endBefore(cursor)
+                .limitToLast(HISTORY_PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(page -> {
+                    isLoadingPage = false;
+                    if (!isFirstMessageAt(cursor)) {
+                        return; // The list changed while the page was loading
+                    }
+                    hasOlderMessages = page.size() == HISTORY_PAGE_SIZE;
+                    prependMessages(toMessages(page));
+                    evictMessagesFromBottom();
+                })
+                .addOnFailureListener(e -> {
+                    isLoadingPage = false;
+                    logCriticalError("Failed to load older messages.", e);
+                });
+    }
+
+    /**
+     * Loads the page of messages following the last loaded message while the live window is detached.
+     * The page is read from the on-device store when it holds a full page, otherwise from Firestore.
+     */
+    private void loadNewerMessages() {
+        if (isLoadingPage || !hasNewerMessages || messageList.isEmpty()) {
+            return;
+        }
+        final Timestamp cursor = sentTimestamps.get(messageList.get(messageList.size() - 1).id);
+        if (cursor == null) {
+            return;
+        }
+
+        isLoadingPage = true;
+        final String storedChatId = chatId;
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            List<MessageStore.Entry> stored = messageStore.loadAfter(storedChatId, cursor, HISTORY_PAGE_SIZE);
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (stored.size() < HISTORY_PAGE_SIZE) {
+                    fetchNewerMessages(cursor);
+                } else if (isLastMessageAt(cursor)) {
+                    isLoadingPage = false;
+                    appendHistory(rememberEntries(stored));
+                } else {
+                    isLoadingPage = false;
+                }
+            });
+        });
+    }
+
+    /**
+     * Fetches the page of messages following the given cursor from Firestore and appends it to the list.
+     * Once the newest message is reached, the live window is re-attached below the loaded history.
+     *
+     * @param cursor The exact timestamp of the last loaded message.
+     */
+    private void fetchNewerMessages(Timestamp cursor) {
+        messagesCollection()
+                .orderBy("sentDate")
+                .startAfter(cursor)
+                .limit(HISTORY_PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(page -> {
+                    isLoadingPage = false;
+                    if (!isLastMessageAt(cursor)) {
+                        return; // The list changed while the page was loading
+                    }
+                    appendHistory(toMessages(page));
+
+                    if (page.size() < HISTORY_PAGE_SIZE) {
+                        hasNewerMessages = false;
+                        Message newest = messageList.get(messageList.size() - 1);
+                        listenForMessages(sentTimestamps.get(newest.id));
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    isLoadingPage = false;
+                    logCriticalError("Failed to load newer messages.", e);
+                });
+    }
+
+    /**
+     * Appends a page of newer history to the end of the list and evicts the oldest pages if needed.
+     *
+     * @param newer The newer messages, in chronological order.
+     */
+    private void appendHistory(List<Message> newer) {
+        int insertPosition = messageList.size();
+        messageList.addAll(newer);
+        historyCount += newer.size();
+        messagesAdapter.notifyItemRangeInserted(insertPosition, newer.size());
+        evictMessagesFromTop();
+    }
+
+    /**
+     * Checks whether the first loaded message still has the given timestamp.
+     *
+     * @param cursor The expected timestamp.
+     * @return True if the first loaded message has the given timestamp.
+     */
+    private boolean isFirstMessageAt(Timestamp cursor) {
+        return !messageList.isEmpty() && cursor.equals(sentTimestamps.get(messageList.get(0).id));
+    }
+
+    /**
+     * Checks whether the last loaded message still has the given timestamp.
+     *
+     * @param cursor The expected timestamp.
+     * @return True if the last loaded message has the given timestamp.
+     */
+    private boolean isLastMessageAt(Timestamp cursor) {
+        return !messageList.isEmpty() && cursor.equals(sentTimestamps.get(messageList.get(messageList.size() - 1).id));
+    }
+
+    /**
+     * Converts a page of message documents into Message objects, remembering their exact timestamps.
+     *
+     * @param page The query result page.
+     * @return The messages of the page in query order.
+     */
+    private List<Message> toMessages(QuerySnapshot page) {
+        List<Message> messages = new ArrayList<>();
+        List<MessageStore.Entry> confirmedMessages = new ArrayList<>();
+        for (DocumentSnapshot document : page.getDocuments()) {
+            Message message = document.toObject(Message.class);
+            if (message != null) {
+                addIfConfirmed(confirmedMessages, message, rememberSentTimestamp(document));
+                messages.add(message);
+            }
+        }
+        persistMessageChanges(confirmedMessages, new ArrayList<>());
+        return messages;
+    }
+
+    /**
+     * Converts stored entries into Message objects, remembering their exact timestamps.
+     *
+     * @param entries The stored entries.
+     * @return The messages in the same order.
+     */
+    private List<Message> rememberEntries(List<MessageStore.Entry> entries) {
+        List<Message> messages = new ArrayList<>();
+        for (MessageStore.Entry entry : entries) {
+            sentTimestamps.put(entry.message.id, entry.sentTimestamp);
+            messages.add(entry.message);
+        }
+        return messages;
+    }
+
+    /**
+     * Inserts older messages at the top of the list while keeping the visible rows in place.
+     *
+     * @param older The older messages, in chronological order.
+     */
+    private void prependMessages(List<Message> older) {
+        if (older.isEmpty()) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) binding.messagesRecyclerview.getLayoutManager();
+        int firstVisible = layoutManager.findFirstVisibleItemPosition();
+        View firstView = layoutManager.findViewByPosition(firstVisible);
+        int offset = firstView != null ? firstView.getTop() - binding.messagesRecyclerview.getPaddingTop() : 0;
+
+        messageList.addAll(0, older);
+        historyCount += older.size();
+        messagesAdapter.notifyItemRangeInserted(0, older.size());
+
+        if (firstVisible != RecyclerView.NO_POSITION) {
+            layoutManager.scrollToPositionWithOffset(firstVisible + older.size(), offset);
+        }
+    }
+
+    /**
+     * Evicts the oldest history pages when more than {@link #MAX_LOADED_MESSAGES} are held.
+     * Only history messages are evicted; the live window is never touched.
+     */
+    private void evictMessagesFromTop() {
+        int excess = Math.min(messageList.size() - MAX_LOADED_MESSAGES, historyCount);
+        if (excess <= 0) {
+            return;
+        }
+        List<Message> evicted = messageList.subList(0, excess);
+        for (Message message : evicted) {
+            sentTimestamps.remove(message.id);
+        }
+        evicted.clear();
+        historyCount -= excess;
+        hasOlderMessages = true;
+        messagesAdapter.notifyItemRangeRemoved(0, excess);
+    }
+
+    /**
+     * Evicts the newest messages when more than {@link #MAX_LOADED_MESSAGES} are held while the user
+     * reads old history. The live window is detached first; it is re-attached by
+     * {@link #loadNewerMessages()} once the user scrolls back down to the newest message.
+     */
+    private void evictMessagesFromBottom() {
+        int excess = messageList.size() - MAX_LOADED_MESSAGES;
+        if (excess <= 0 || pendingCount > 0) {
+            return; // Never evict messages that are still being sent
+        }
+        if (messagesListener != null) {
+            messagesListener.remove();
+            messagesListener = null;
+        }
+        List<Message> evicted = messageList.subList(messageList.size() - excess, messageList.size());
+        for (Message message : evicted) {
+            sentTimestamps.remove(message.id);
+        }
+        evicted.clear();
+        historyCount = messageList.size();
+        hasNewerMessages = true;
+        messagesAdapter.notifyItemRangeRemoved(messageList.size(), excess);
+    }
+
+    /**
+     * Returns the position of an optimistically sent message that the live listener has not delivered yet.
+     *
+     * @param messageId The ID of the message.
+     * @return The position of the message, or -1 if it is not pending at the end of the list.
+     */
+    private int indexOfPendingMessage(String messageId) {
+        for (int i = messageList.size() - pendingCount; i < messageList.size(); i++) {
+            if (messageList.get(i).id.equals(messageId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns from old history to the newest messages, e.g. before showing a newly sent message,
+     * by dropping the loaded pages and re-attaching the live window below the stored messages.
+     */
+    private void reloadLatestMessages() {
+        if (messagesListener != null) {
+            messagesListener.remove();
+            messagesListener = null;
+        }
+        int count = messageList.size() - pendingCount;
+        if (count > 0) {
+            List<Message> dropped = messageList.subList(0, count);
+            for (Message message : dropped) {
+                sentTimestamps.remove(message.id);
+            }
+            dropped.clear();
+            messagesAdapter.notifyItemRangeRemoved(0, count);
+        }
+        historyCount = 0;
+        hasOlderMessages = true;
+        hasNewerMessages = false;
+        isLoadingPage = false;
+        loadStoredMessages();
+    }
+
+    /**
+     * Checks whether the oldest message of a full live window directly follows the anchor it was attached at,
+     * and discards the history above it otherwise. Exactly a window's worth of new messages leaves no gap,
+     * so the history is kept; more leave messages between the anchor and the window, which are never loaded.
+     *
+     * @param anchor       The timestamp the live window was attached after.
+     * @param oldestLiveId The ID of the oldest message in the first server snapshot of the window.
+     * @param generation   The liveWindowGeneration of the listener that delivered the snapshot.
+     */
+    private void verifyWindowConnects(Timestamp anchor, String oldestLiveId, int generation) {
+        messagesCollection()
+                .orderBy("sentDate")
+                .startAfter(anchor)
+                .limit(1)
+                .get()
+                .addOnSuccessListener(next -> {
+                    if (generation != liveWindowGeneration || next.isEmpty()) {
+                        return; // The live window was re-attached meanwhile
+                    }
+                    if (!next.getDocuments().get(0).getId().equals(oldestLiveId)) {
+                        discardHistory(); // More messages than the window arrived since the anchor
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (generation == liveWindowGeneration) {
+                        discardHistory(); // Cannot tell whether the window connects, so do not risk a gap
                     }
                 });
     }
 
+    /**
+     * Discards the history at the top of the list and in the on-device store, e.g. when the live window
+     * does not connect to it, so that neither the list nor the store ever contains a gap.
+     */
+    private void discardHistory() {
+        if (historyCount > 0) {
+            List<Message> discarded = messageList.subList(0, historyCount);
+            for (Message message : discarded) {
+                sentTimestamps.remove(message.id);
+            }
+            discarded.clear();
+            messagesAdapter.notifyItemRangeRemoved(0, historyCount);
+            historyCount = 0;
+        }
+        hasOlderMessages = true;
+
+        final String storedChatId = chatId;
+        AppExecutors.getInstance().diskIO().execute(() -> messageStore.deleteChat(storedChatId));
+    }
+
+    /**
+     * Checks whether a snapshot adds a message sent after the given one. The oldest live message only slides
+     * out of a full window when a newer message arrives; when it is deleted instead, the window is refilled
+     * with an older message, or not at all if there is none.
+     *
+     * @param changes  The document changes of a messages snapshot.
+     * @param sentDate The server timestamp of the removed message, or null if its write was still pending.
+     * @return True if a newer message is added.
+     */
+    private static boolean addsNewerMessage(List<DocumentChange> changes, @Nullable Timestamp sentDate) {
+        for (DocumentChange change : changes) {
+            if (change.getType() != DocumentChange.Type.ADDED) {
+                continue;
+            }
+            Timestamp addedSentDate = change.getDocument().getTimestamp("sentDate");
+            if (sentDate == null || addedSentDate == null || addedSentDate.compareTo(sentDate) > 0) {
+                return true; // A pending write is newer than any confirmed message
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records the exact server timestamp of a message document so it can serve as a page cursor.
+     *
+     * @param document The message document.
+     * @return The server timestamp, or null if the write is still pending.
+     */
+    @Nullable
+    private Timestamp rememberSentTimestamp(DocumentSnapshot document) {
+        Timestamp sentDate = document.getTimestamp("sentDate");
+        if (sentDate != null) {
+            sentTimestamps.put(document.getId(), sentDate);
+        }
+        return sentDate;
+    }
+
+    /**
+     * Adds a message to the given list of entries to store if it has been confirmed by the server.
+     *
+     * @param entries       The entries to store.
+     * @param message       The message.
+     * @param sentTimestamp The server timestamp of the message, or null if the write is still pending.
+     */
+    private void addIfConfirmed(List<MessageStore.Entry> entries, Message message, @Nullable Timestamp sentTimestamp) {
+        MessageStore.Entry entry = MessageStore.Entry.of(message, sentTimestamp);
+        if (entry != null) {
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * Writes confirmed messages to and removes deleted messages from the on-device store in the background.
+     *
+     * @param confirmedMessages The messages confirmed by the server.
+     * @param deletedMessageIds The IDs of deleted messages.
+     */
+    private void persistMessageChanges(List<MessageStore.Entry> confirmedMessages, List<String> deletedMessageIds) {
+        if (confirmedMessages.isEmpty() && deletedMessageIds.isEmpty()) {
+            return;
+        }
+        final String storedChatId = chatId;
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            messageStore.upsert(confirmedMessages);
+            for (String messageId : deletedMessageIds) {
+                messageStore.delete(storedChatId, messageId);
+            }
+        });
+    }
+
     /**
      * Deletes the current chat if the user is the creator.
      */
@@ -350,6 +964,7 @@ public class MessagingActivity extends AppCompatActivity {
                 .document(chatId)
                 .delete()
                 .addOnSuccessListener(unused -> {
+                    AppExecutors.getInstance().diskIO().execute(() -> messageStore.deleteChat(chat.id));
                     for (String userId : chat.userIdList) {
                         database.collection(Constants.KEY_COLLECTION_USERS)
                                 .document(userId)
@@ -382,7 +997,10 @@ public class MessagingActivity extends AppCompatActivity {
     }
 
     /**
-     * Sends a message to the current chat.
+     * Sends a message to the current chat. The message is rendered at once in a pending state and is
+     * swapped for its server copy when the live listener delivers it, so sending never blocks the input.
+     * The message document and the chat's recent message preview are written in a single batch,
+     * so both are committed in one round trip and never diverge.
      *
      * @param messageContent The message content.
      */
@@ -392,28 +1010,26 @@ public class MessagingActivity extends AppCompatActivity {
             return;
         }
 
-        showLoading(true, "sending message...");
-
         try {
-            String messageId = database.collection(Constants.KEY_COLLECTION_CHATS)
-                    .document(chatId)
-                    .collection(Constants.KEY_COLLECTION_MESSAGES)
-                    .document().getId();
-
-            Message message = new Message(messageId, chatId, preferenceManager.getString(Constants.KEY_ID, ""), messageContent);
-
-            database.collection(Constants.KEY_COLLECTION_CHATS)
-                    .document(chatId)
-                    .collection(Constants.KEY_COLLECTION_MESSAGES)
-                    .document(messageId)
-                    .set(message)
-                    .addOnCompleteListener(task -> {
-                        if (task.isSuccessful()) {
-                            updateRecentMessage(message);
-                        } else {
-                            Utilities.showToast(this, "Failed to send message. Please try again.", Utilities.ToastType.ERROR);
-                        }
-                        showLoading(false, null);
+            DocumentReference chatReference = database.collection(Constants.KEY_COLLECTION_CHATS).document(chatId);
+            DocumentReference messageReference = chatReference.collection(Constants.KEY_COLLECTION_MESSAGES).document();
+
+            Message message = new Message(messageReference.getId(), chatId, preferenceManager.getString(Constants.KEY_ID, ""), messageContent);
+            showPendingMessage(message);
+
+            WriteBatch batch = database.batch();
+            batch.set(messageReference, message);
+            batch.update(chatReference,
+                    "recentMessageId", message.id,
+                    "recentMessageContent", Chat.toPreviewSnippet(message.content),
+                    "recentMessageSenderId", message.senderId,
+                    "recentMessageSenderName", getCurrentUserDisplayName(),
+                    "recentMessageSenderAvatarVersion", preferenceManager.getLong(Constants.KEY_AVATAR_VERSION, 0),
+                    "recentMessageSentDate", FieldValue.serverTimestamp());
+            batch.commit()
+                    .addOnFailureListener(e -> {
+                        removePendingMessage(message.id);
+                        logCriticalError("Failed to send message. Please try again.", e);
                     });
 
         } catch (IllegalArgumentException e) {
@@ -422,21 +1038,50 @@ public class MessagingActivity extends AppCompatActivity {
     }
 
     /**
-     * Updates the most recent message for the chat.
+     * Builds the current user's display name for the chat's recent message preview.
      *
-     * @param message The recent message.
+     * @return The full name, or the email or phone number when the name is unavailable.
      */
-    private void updateRecentMessage(Message message) {
-        database.collection(Constants.KEY_COLLECTION_CHATS)
-                .document(chatId)
-                .update("recentMessageId", message.id)
-                .addOnCompleteListener(task -> {
-                    if (!task.isSuccessful()) {
-                        Utilities.showToast(this, "Failed to update recent message. Please try again.", Utilities.ToastType.ERROR);
-                    }
-                });
+    private String getCurrentUserDisplayName() {
+        String firstName = preferenceManager.getString(Constants.KEY_FIRST_NAME, "");
+        String lastName = preferenceManager.getString(Constants.KEY_LAST_NAME, "");
+        if (!firstName.isEmpty() && !lastName.isEmpty()) {
+            return firstName + " " + lastName;
+        }
+        String email = preferenceManager.getString(Constants.KEY_EMAIL, "");
+        return !email.isEmpty() ? email : preferenceManager.getString(Constants.KEY_PHONE, "");
     }
 
+    /**
+     * Renders a locally built message at the bottom of the list in a pending state.
+     *
+     * @param message The message being sent.
+     */
+    private void showPendingMessage(Message message) {
+        if (hasNewerMessages) {
+            reloadLatestMessages(); // The user is reading old history; return to the newest messages first
+        }
+        messagesAdapter.setMessagePending(message.id, true);
+        messageList.add(message);
+        pendingCount++;
+        messagesAdapter.notifyItemInserted(messageList.size() - 1);
+        binding.messagesRecyclerview.smoothScrollToPosition(messageList.size() - 1);
+    }
+
+    /**
+     * Removes an optimistically rendered message whose write failed before the live listener delivered it.
+     *
+     * @param messageId The ID of the message.
+     */
+    private void removePendingMessage(String messageId) {
+        messagesAdapter.setMessagePending(messageId, false);
+        int position = indexOfPendingMessage(messageId);
+        if (position != -1) {
+            messageList.remove(position);
+            pendingCount--;
+            messagesAdapter.notifyItemRemoved(position);
+        }
+    }
 
     /**
      * Creates a new chat and sends the first message.
@@ -462,7 +1107,7 @@ public class MessagingActivity extends AppCompatActivity {
                         updateChatIdsForUsers(userIds);
                         sendMessage(initialMessage);
                         showLoading(false, null);
-                        listenForMessages();
+                        listenForMessages(null);
                     })
                     .addOnFailureListener(e -> {
                         logCriticalError("Failed to create chat. Please try again.", e);
@@ -500,6 +1145,209 @@ public class MessagingActivity extends AppCompatActivity {
         }
     }
 
+    // ============================== Message Search ==============================
+
+    /**
+     * Shows a dialog that searches the messages of this chat stored on the device as the user types.
+     * Selecting a result jumps to it in the conversation.
+     */
+    private void showMessageSearch() {
+        if (chatId == null) {
+            Utilities.showToast(this, "Send a message to start searching this chat.", Utilities.ToastType.INFO);
+            return;
+        }
+
+        DialogMessageSearchBinding searchBinding = DialogMessageSearchBinding.inflate(getLayoutInflater());
+        ArrayAdapter<CharSequence> resultsAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1);
+        List<MessageStore.SearchHit> hits = new ArrayList<>();
+        searchBinding.listSearchResults.setAdapter(resultsAdapter);
+
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle("Search Messages")
+                .setView(searchBinding.getRoot())
+                .setNegativeButton("Close", null)
+                .create();
+
+        searchBinding.listSearchResults.setOnItemClickListener((parent, view, position, id) -> {
+            dialog.dismiss();
+            jumpToMessage(hits.get(position).entry);
+        });
+        searchBinding.inputSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchMessages(s.toString(), searchBinding, resultsAdapter, hits);
+            }
+        });
+        dialog.setOnDismissListener(d -> searchGeneration++);
+        dialog.show();
+    }
+
+    /**
+     * Searches the stored messages on the disk thread and shows the results in the search dialog,
+     * unless a newer query has been typed in the meantime.
+     *
+     * @param query          The search query.
+     * @param searchBinding  The binding of the search dialog.
+     * @param resultsAdapter The adapter of the result list.
+     * @param hits           The shown hits, in the same order as the adapter.
+     */
+    private void searchMessages(String query, DialogMessageSearchBinding searchBinding,
+                                ArrayAdapter<CharSequence> resultsAdapter, List<MessageStore.SearchHit> hits) {
+        final int generation = ++searchGeneration;
+        final String storedChatId = chatId;
+        if (query.trim().isEmpty()) {
+            showSearchResults(new ArrayList<>(), query, searchBinding, resultsAdapter, hits);
+            return;
+        }
+
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            List<MessageStore.SearchHit> results = messageStore.search(storedChatId, query, SEARCH_RESULT_LIMIT);
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (generation == searchGeneration && !isDestroyed()) {
+                    showSearchResults(results, query, searchBinding, resultsAdapter, hits);
+                }
+            });
+        });
+    }
+
+    /**
+     * Shows search results in the search dialog, each as its sender and date above the highlighted snippet.
+     *
+     * @param results        The search results.
+     * @param query          The query the results belong to.
+     * @param searchBinding  The binding of the search dialog.
+     * @param resultsAdapter The adapter of the result list.
+     * @param hits           The shown hits, replaced by the results.
+     */
+    private void showSearchResults(List<MessageStore.SearchHit> results, String query, DialogMessageSearchBinding searchBinding,
+                                   ArrayAdapter<CharSequence> resultsAdapter, List<MessageStore.SearchHit> hits) {
+        String currentUserId = preferenceManager.getString(Constants.KEY_ID, "");
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy HH:mm", Locale.getDefault());
+        List<CharSequence> rows = new ArrayList<>();
+        for (MessageStore.SearchHit hit : results) {
+            Message message = hit.entry.message;
+            String sender = currentUserId.equals(message.senderId) ? "Me" : findUserNameById(message.senderId);
+            SpannableStringBuilder row = new SpannableStringBuilder(sender + " · " + sdf.format(message.sentDate) + "\n");
+            appendHighlighted(row, hit.snippet);
+            rows.add(row);
+        }
+
+        hits.clear();
+        hits.addAll(results);
+        resultsAdapter.clear();
+        resultsAdapter.addAll(rows);
+
+        if (query.trim().isEmpty()) {
+            searchBinding.textSearchStatus.setVisibility(View.GONE);
+        } else {
+            searchBinding.textSearchStatus.setVisibility(View.VISIBLE);
+            searchBinding.textSearchStatus.setText(results.isEmpty()
+                    ? "No messages found on this device."
+                    : results.size() + (results.size() == 1 ? " message found" : " messages found"));
+        }
+    }
+
+    /**
+     * Appends a search snippet to a text, turning the matches marked by the store into bold, colored text.
+     *
+     * @param text    The text to append to.
+     * @param snippet The snippet, with matches between HIGHLIGHT_START and HIGHLIGHT_END.
+     */
+    private void appendHighlighted(SpannableStringBuilder text, String snippet) {
+        int highlightColor = ContextCompat.getColor(this, R.color.primary);
+        int matchStart = -1;
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            if (c == MessageStore.HIGHLIGHT_START) {
+                matchStart = text.length();
+            } else if (c == MessageStore.HIGHLIGHT_END && matchStart >= 0) {
+                text.setSpan(new StyleSpan(Typeface.BOLD), matchStart, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                text.setSpan(new ForegroundColorSpan(highlightColor), matchStart, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                matchStart = -1;
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    /**
+     * Scrolls to a message found by search. If it is not loaded, the conversation is replaced by a window
+     * of stored messages around it, with the live window detached as when reading old history;
+     * scrolling in either direction then pages as usual.
+     *
+     * @param hit The stored message to jump to.
+     */
+    private void jumpToMessage(MessageStore.Entry hit) {
+        for (int i = 0; i < messageList.size(); i++) {
+            if (messageList.get(i).id.equals(hit.message.id)) {
+                ((LinearLayoutManager) binding.messagesRecyclerview.getLayoutManager()).scrollToPositionWithOffset(i, 0);
+                return;
+            }
+        }
+        if (pendingCount > 0) {
+            Utilities.showToast(this, "Please wait until your messages are sent.", Utilities.ToastType.INFO);
+            return;
+        }
+
+        isLoadingPage = true;
+        final String storedChatId = chatId;
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            List<MessageStore.Entry> before = messageStore.loadBefore(storedChatId, hit.sentTimestamp, JUMP_WINDOW_HALF);
+            List<MessageStore.Entry> after = messageStore.loadAfter(storedChatId, hit.sentTimestamp, JUMP_WINDOW_HALF);
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (isDestroyed()) {
+                    return;
+                }
+                if (pendingCount > 0) {
+                    isLoadingPage = false;
+                    return; // A message was sent while the window was loading
+                }
+                showMessageWindow(before, hit, after);
+            });
+        });
+    }
+
+    /**
+     * Replaces the loaded messages by a window of stored messages and scrolls to its center message.
+     *
+     * @param before The messages preceding the center message, in chronological order.
+     * @param center The message to scroll to.
+     * @param after  The messages following the center message, in chronological order.
+     */
+    private void showMessageWindow(List<MessageStore.Entry> before, MessageStore.Entry center, List<MessageStore.Entry> after) {
+        if (messagesListener != null) {
+            messagesListener.remove();
+            messagesListener = null;
+        }
+        int removedCount = messageList.size();
+        messageList.clear();
+        sentTimestamps.clear();
+        messagesAdapter.notifyItemRangeRemoved(0, removedCount);
+
+        List<MessageStore.Entry> window = new ArrayList<>(before);
+        window.add(center);
+        window.addAll(after);
+        messageList.addAll(rememberEntries(window));
+        historyCount = messageList.size();
+        hasOlderMessages = true;
+        hasNewerMessages = true;
+        isLoadingPage = false;
+        messagesAdapter.notifyItemRangeInserted(0, messageList.size());
+        ((LinearLayoutManager) binding.messagesRecyclerview.getLayoutManager()).scrollToPositionWithOffset(before.size(), 0);
+
+        if (after.size() < JUMP_WINDOW_HALF) {
+            loadNewerMessages(); // The store ends close to the result, so fetch the rest and re-attach the live window
+        }
+    }
+
     // ============================== Chat Information ==============================
 
     /**
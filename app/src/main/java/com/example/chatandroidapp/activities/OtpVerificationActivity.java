@@ -6,11 +6,16 @@ import android.util.Log;
 import android.view.View;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.chatandroidapp.database.AvatarStore;
+import com.example.chatandroidapp.database.MessageStore;
 import com.example.chatandroidapp.databinding.ActivityOtpVerificationBinding;
 import com.example.chatandroidapp.fragments.ProfileFragment;
 import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AppExecutors;
+import com.example.chatandroidapp.utilities.AvatarEncoder;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
@@ -21,9 +26,13 @@ import com.google.firebase.auth.PhoneAuthCredential;
 import com.google.firebase.auth.PhoneAuthOptions;
 import com.google.firebase.auth.PhoneAuthProvider;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -33,6 +42,11 @@ import java.util.concurrent.TimeUnit;
 public class OtpVerificationActivity extends AppCompatActivity {
     private static final String TAG = "OTP_VERIFICATION";
 
+    /**
+     * Prefix of the intent extras carrying the sign-up avatar variants, followed by the variant size.
+     */
+    private static final String EXTRA_AVATAR_VARIANT = "avatarVariant";
+
     private ActivityOtpVerificationBinding binding;
     private FirebaseAuth firebaseAuth;
     private FirebaseFirestore firestore;
@@ -234,23 +248,72 @@ public class OtpVerificationActivity extends AppCompatActivity {
     }
 
     /**
-     * Registers a new user in Firestore and navigates to MainActivity.
+     * Adds the avatar variants picked during sign-up to the intent starting this activity, so they are uploaded
+     * as encoded from the original picture rather than re-encoded from the local copy.
+     *
+     * @param intent   The intent starting this activity.
+     * @param variants The avatar variants keyed by size, from AvatarEncoder.
+     */
+    public static void putAvatarVariants(@NonNull Intent intent, @NonNull Map<Integer, byte[]> variants) {
+        for (Map.Entry<Integer, byte[]> variant : variants.entrySet()) {
+            intent.putExtra(EXTRA_AVATAR_VARIANT + variant.getKey(), variant.getValue());
+        }
+    }
+
+    /**
+     * Reads the avatar variants added by putAvatarVariants.
+     *
+     * @param intent The intent that started this activity.
+     * @return The variants keyed by size, or null if the intent carries none or not every size.
+     */
+    @Nullable
+    private static Map<Integer, byte[]> getAvatarVariants(@NonNull Intent intent) {
+        Map<Integer, byte[]> variants = new LinkedHashMap<>();
+        for (int size : AvatarEncoder.SIZES) {
+            byte[] variant = intent.getByteArrayExtra(EXTRA_AVATAR_VARIANT + size);
+            if (variant == null) {
+                return null;
+            }
+            variants.put(size, variant);
+        }
+        return variants;
+    }
+
+    /**
+     * Registers a new user in Firestore and navigates to MainActivity,
+     * uploading the avatar variants SignUpActivity encoded from the picked picture.
      */
     private void registerNewUser() {
         showLoading(true, "Registering new user...");
 
+        String encodedImage = preferenceManager.getString(Constants.KEY_IMAGE, "");
+        saveNewUser(encodedImage, encodedImage.isEmpty() ? null : getAvatarVariants(getIntent()));
+    }
+
+    /**
+     * Writes a new user and their avatar to Firestore in one batch and navigates to MainActivity.
+     *
+     * @param encodedImage   The local copy of the avatar, kept in preferences.
+     * @param avatarVariants The avatar variants to upload, or null if the user has no avatar.
+     */
+    private void saveNewUser(String encodedImage, @Nullable Map<Integer, byte[]> avatarVariants) {
         final User user = new User();
-        user.image = preferenceManager.getString(Constants.KEY_IMAGE, "");
         user.firstName = preferenceManager.getString(Constants.KEY_FIRST_NAME, "");
         user.lastName = preferenceManager.getString(Constants.KEY_LAST_NAME, "");
         user.phone = phoneNumber;
         user.id = firestore.collection(Constants.KEY_COLLECTION_USERS).document().getId();
 
-        firestore.collection(Constants.KEY_COLLECTION_USERS)
-                .document(user.id)
-                .set(user)
+        // The user and their avatar are written together; the image itself goes to the AvatarStore
+        WriteBatch batch = firestore.batch();
+        if (avatarVariants != null) {
+            user.avatarVersion = AvatarStore.newVersion();
+            AvatarStore.getInstance().writeAvatar(batch, user.id, user.avatarVersion, avatarVariants);
+        }
+        batch.set(firestore.collection(Constants.KEY_COLLECTION_USERS).document(user.id), user);
+        batch.commit()
                 .addOnSuccessListener(unused -> {
                     saveUserPreferences(user);
+                    preferenceManager.putString(Constants.KEY_IMAGE, encodedImage); // Keep the local copy of the avatar
                     navigateToMainActivity();
                 })
                 .addOnFailureListener(e -> {
@@ -297,7 +360,8 @@ public class OtpVerificationActivity extends AppCompatActivity {
 
         firestore.collection(Constants.KEY_COLLECTION_USERS)
                 .document(preferenceManager.getString(Constants.KEY_ID, ""))
-                .update(Constants.KEY_PHONE, phoneNumber)
+                .update(Constants.KEY_PHONE, phoneNumber,
+                        Constants.KEY_UPDATED_AT, FieldValue.serverTimestamp())
                 .addOnSuccessListener(unused -> {
                     preferenceManager.putString(Constants.KEY_PHONE, phoneNumber);
                     navigateToMainActivity();
@@ -321,6 +385,7 @@ public class OtpVerificationActivity extends AppCompatActivity {
         preferenceManager.putString(Constants.KEY_PHONE, user.phone);
         preferenceManager.putString(Constants.KEY_EMAIL, user.email);
         preferenceManager.putString(Constants.KEY_IMAGE, user.image);
+        preferenceManager.putLong(Constants.KEY_AVATAR_VERSION, user.avatarVersion);
     }
 
     /**
@@ -337,6 +402,8 @@ public class OtpVerificationActivity extends AppCompatActivity {
      */
     private void logOutAndNavigateToSignIn() {
         preferenceManager.clear();
+        MessageStore messageStore = MessageStore.getInstance(getApplicationContext());
+        AppExecutors.getInstance().diskIO().execute(messageStore::deleteAll); // Cached messages belong to the signed-out user
         Intent intent = new Intent(this, SignInActivity.class);
         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
         startActivity(intent);
@@ -11,9 +11,12 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.chatandroidapp.R;
+import com.example.chatandroidapp.database.AvatarStore;
+import com.example.chatandroidapp.database.MessageStore;
 import com.example.chatandroidapp.databinding.ActivitySignInBinding;
 import com.example.chatandroidapp.fragments.ProfileFragment;
 import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AppExecutors;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
@@ -108,7 +111,7 @@ public class SignInActivity extends AppCompatActivity {
     }
 
     /**
-     * Deletes the user document from Firestore and proceeds to delete the user from FirebaseAuth.
+     * Deletes the user document and avatar from Firestore and proceeds to delete the user from FirebaseAuth.
      *
      * @param firestore    The FirebaseFirestore instance.
      * @param firebaseAuth The FirebaseAuth instance.
@@ -116,8 +119,10 @@ public class SignInActivity extends AppCompatActivity {
      * @param context      The context for displaying Toast messages.
      */
     private static void deleteUserDocument(FirebaseFirestore firestore, FirebaseAuth firebaseAuth, String userId, Context context) {
-        firestore.collection(Constants.KEY_COLLECTION_USERS)
-                .document(userId).delete()
+        WriteBatch batch = firestore.batch();
+        batch.delete(firestore.collection(Constants.KEY_COLLECTION_USERS).document(userId));
+        AvatarStore.getInstance().deleteAvatar(batch, userId);
+        batch.commit()
                 .addOnSuccessListener(aVoid -> {
                     // Proceed to delete the user from FirebaseAuth
                     deleteUserFromAuth(firebaseAuth, context);
@@ -150,8 +155,10 @@ public class SignInActivity extends AppCompatActivity {
                     String successMessage = "Account deleted successfully.";
                     Log.d("SignInActivity", successMessage);
                     Utilities.showToast(context, successMessage, Utilities.ToastType.SUCCESS);
-                    // Clear preferences
+                    // Clear preferences and the messages cached for this user
                     PreferenceManager.getInstance(context).clear();
+                    MessageStore messageStore = MessageStore.getInstance(context);
+                    AppExecutors.getInstance().diskIO().execute(messageStore::deleteAll);
                     // Redirect to SignInActivity
                     navigateToSignInActivity(context);
                 })
@@ -401,5 +408,6 @@ public class SignInActivity extends AppCompatActivity {
         preferenceManager.putString(Constants.KEY_PHONE, user.phone);
         preferenceManager.putString(Constants.KEY_EMAIL, user.email);
         preferenceManager.putString(Constants.KEY_IMAGE, user.image);
+        preferenceManager.putLong(Constants.KEY_AVATAR_VERSION, user.avatarVersion);
     }
 }
\ No newline at end of file
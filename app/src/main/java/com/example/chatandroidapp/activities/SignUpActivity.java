@@ -2,7 +2,6 @@ package com.example.chatandroidapp.activities;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
@@ -10,17 +9,22 @@ import android.view.View;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.chatandroidapp.database.AvatarStore;
 import com.example.chatandroidapp.databinding.ActivitySignUpBinding;
 import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AvatarEncoder;
 import com.example.chatandroidapp.utilities.Constants;
+import com.example.chatandroidapp.utilities.ImageProcessor;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.messaging.FirebaseMessaging;
 
-import java.io.InputStream;
+import java.util.Map;
 
 /**
  * Handles user registration via email/password or phone/OTP.
@@ -32,7 +36,8 @@ public class SignUpActivity extends AppCompatActivity {
     public static final String ACTION_SIGN_UP = "signUp";
     private static final String TAG = "SIGN_UP_ACTIVITY";
     private ActivitySignUpBinding binding;
-    private String encodedImage;
+    private String encodedImage; // Local copy of the largest avatar variant
+    private Map<Integer, byte[]> avatarVariants; // Avatar variants to upload to the AvatarStore
     private final ActivityResultLauncher<Intent> pickImage = registerForActivityResult(
             new ActivityResultContracts.StartActivityForResult(),
             result -> {
@@ -230,18 +235,23 @@ public class SignUpActivity extends AppCompatActivity {
         user.lastName = binding.inputLastName.getText().toString().trim();
         user.email = binding.inputEmail.getText().toString().trim();
         user.hashedPassword = User.hashPassword(binding.inputPassword.getText().toString().trim());
-        user.image = encodedImage;
         user.id = database.collection(Constants.KEY_COLLECTION_USERS).document().getId();
+        if (avatarVariants != null) {
+            user.avatarVersion = AvatarStore.newVersion(); // The image itself goes to the AvatarStore
+        }
         return user;
     }
 
     /**
-     * Saves a user to Firestore database.
+     * Saves a user and their avatar to Firestore database in one batch.
      */
     private void saveUserToDatabase(FirebaseFirestore database, User user) {
-        database.collection(Constants.KEY_COLLECTION_USERS)
-                .document(user.id)
-                .set(user)
+        WriteBatch batch = database.batch();
+        batch.set(database.collection(Constants.KEY_COLLECTION_USERS).document(user.id), user);
+        if (user.avatarVersion > 0) {
+            AvatarStore.getInstance().writeAvatar(batch, user.id, user.avatarVersion, avatarVariants);
+        }
+        batch.commit()
                 .addOnSuccessListener(unused -> {
                     savePreferences(user);
                     navigateToMainActivity();
@@ -261,7 +271,8 @@ public class SignUpActivity extends AppCompatActivity {
         preferenceManager.putString(Constants.KEY_FIRST_NAME, user.firstName);
         preferenceManager.putString(Constants.KEY_LAST_NAME, user.lastName);
         preferenceManager.putString(Constants.KEY_EMAIL, user.email);
-        preferenceManager.putString(Constants.KEY_IMAGE, user.image);
+        preferenceManager.putString(Constants.KEY_IMAGE, encodedImage);
+        preferenceManager.putLong(Constants.KEY_AVATAR_VERSION, user.avatarVersion);
         preferenceManager.putString(Constants.KEY_FCM_TOKEN, user.fcmToken);
     }
 
@@ -272,6 +283,9 @@ public class SignUpActivity extends AppCompatActivity {
         saveBasicDetails();
         Intent intent = new Intent(this, OtpVerificationActivity.class);
         intent.putExtra(Constants.KEY_ACTION_TYPE, ACTION_SIGN_UP);
+        if (avatarVariants != null) {
+            OtpVerificationActivity.putAvatarVariants(intent, avatarVariants);
+        }
         startActivity(intent);
         finish();
     }
@@ -322,20 +336,32 @@ public class SignUpActivity extends AppCompatActivity {
 
     /**
      * Handles image selection and encodes the selected image.
+     * The image is downsampled and encoded in the background, so the full-size photo is never decoded.
      *
      * @param imageUri URI of the selected image.
      */
     private void handleImageSelection(Uri imageUri) {
         if (imageUri != null) {
-            try (InputStream inputStream = getContentResolver().openInputStream(imageUri)) {
-                Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-                encodedImage = User.encodeImage(bitmap);
-                binding.imageProfile.setImageBitmap(bitmap);
-                binding.textUploadImage.setVisibility(View.GONE);
-            } catch (Exception e) {
-                Utilities.showToast(this, "Failed to load image.", Utilities.ToastType.ERROR);
-                Log.e(TAG, "Error loading image", e);
-            }
+            ImageProcessor.processProfileImage(this, imageUri, new ImageProcessor.OnImageProcessedListener() {
+                @Override
+                public void onImageProcessed(@NonNull Bitmap preview, @NonNull Map<Integer, byte[]> variants) {
+                    if (isFinishing() || isDestroyed()) {
+                        return;
+                    }
+                    avatarVariants = variants;
+                    encodedImage = AvatarEncoder.toBase64(variants.get(AvatarEncoder.LARGEST_SIZE));
+                    binding.imageProfile.setImageBitmap(preview);
+                    binding.textUploadImage.setVisibility(View.GONE);
+                }
+
+                @Override
+                public void onImageProcessingFailed(@NonNull Exception e) {
+                    Log.e(TAG, "Error loading image", e);
+                    if (!isFinishing() && !isDestroyed()) {
+                        Utilities.showToast(SignUpActivity.this, "Failed to load image.", Utilities.ToastType.ERROR);
+                    }
+                }
+            });
         } else {
             Utilities.showToast(this, "No image selected.", Utilities.ToastType.WARNING);
         }
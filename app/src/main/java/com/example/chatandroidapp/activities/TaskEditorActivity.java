@@ -15,6 +15,7 @@ import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
 import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.util.Date;
 import java.util.Locale;
 
 /**
@@ -157,7 +158,7 @@ public class TaskEditorActivity extends AppCompatActivity {
      * Updates the selected date TextView based on the currently selected date in the calendar.
      */
     private void updateSelectedDate() {
-        binding.inputDate.setText(String.format(Locale.getDefault(),
+        binding.inputDate.setText(String.format(Locale.ROOT, // The text is stored as is, so it must use ASCII digits
                 "%04d-%02d-%02d",
                 selectedDateTime.get(Calendar.YEAR),
                 selectedDateTime.get(Calendar.MONTH) + 1,
@@ -168,7 +169,7 @@ public class TaskEditorActivity extends AppCompatActivity {
      * Updates the selected time TextView based on the currently selected time in the calendar.
      */
     private void updateSelectedTime() {
-        binding.inputTime.setText(String.format(Locale.getDefault(),
+        binding.inputTime.setText(String.format(Locale.ROOT,
                 "%02d:%02d",
                 selectedDateTime.get(Calendar.HOUR_OF_DAY),
                 selectedDateTime.get(Calendar.MINUTE)));
@@ -191,14 +192,24 @@ public class TaskEditorActivity extends AppCompatActivity {
 
     /**
      * Populates the UI fields with the given task's data.
+     * The date and time are re-formatted from the parsed due moment, so tasks stored with localized digits
+     * are shown, validated and saved again in ASCII digits.
      *
      * @param task The task whose data will populate the fields.
      */
     private void populateFields(Task task) {
         binding.inputTitle.setText(task.title);
         binding.inputDescription.setText(task.description);
-        binding.inputDate.setText(task.completionDate);
-        binding.inputTime.setText(task.completionTime);
+
+        Date dueAt = Task.toDueAt(task.completionDate, task.completionTime);
+        if (dueAt != null) {
+            selectedDateTime.setTime(dueAt);
+            updateSelectedDate();
+            updateSelectedTime();
+        } else {
+            binding.inputDate.setText(task.completionDate);
+            binding.inputTime.setText(task.completionTime);
+        }
     }
 
     /**
@@ -276,7 +287,8 @@ public class TaskEditorActivity extends AppCompatActivity {
                         "title", title,
                         "description", description,
                         "completionDate", date,
-                        "completionTime", time
+                        "completionTime", time,
+                        Constants.KEY_DUE_AT, Task.toDueAt(date, time)
                 )
                 .addOnSuccessListener(aVoid -> {
                     Utilities.showToast(TaskEditorActivity.this, "", Utilities.ToastType.SUCCESS);
@@ -2,40 +2,60 @@ package com.example.chatandroidapp.adapters;
 
 import android.content.Context;
 import android.content.Intent;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.chatandroidapp.R;
 import com.example.chatandroidapp.activities.MessagingActivity;
 import com.example.chatandroidapp.databinding.ItemChatBinding;
 import com.example.chatandroidapp.models.Chat;
-import com.example.chatandroidapp.models.Message;
-import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AppExecutors;
+import com.example.chatandroidapp.utilities.AvatarCache;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.chatandroidapp.utilities.Utilities;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
 
 /**
  * ChatsAdapter manages the display of chat items in the RecyclerView for ChatsFragment.
- * Each item shows the most recent message, timestamp, and sender details.
+ * Each item shows the most recent message, timestamp, and sender name from the chat's embedded preview,
+ * and the sender's avatar from the shared AvatarCache, by the avatar version embedded in the preview.
  * When a chat item is clicked, it launches the MessagingActivity with the existing chat ID.
+ *
+ * <p>The shown list is replaced through submitList. The AsyncListDiffer behind this ListAdapter diffs it
+ * against the current list on the computation executor, and rows have stable IDs, so an update to one chat
+ * only rebinds or moves that chat's row.</p>
  */
-public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHolder> {
+public class ChatsAdapter extends ListAdapter<Chat, ChatsAdapter.ChatViewHolder> {
 
     /**
-     * List of Chat objects to be displayed in the RecyclerView.
+     * Matches chats by ID and compares them by their preview, so a new snapshot of an unchanged chat is not rebound.
      */
-    private final List<Chat> chatList;
+    private static final DiffUtil.ItemCallback<Chat> DIFF_CALLBACK = new DiffUtil.ItemCallback<Chat>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Chat oldChat, @NonNull Chat newChat) {
+            return oldChat.id.equals(newChat.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Chat oldChat, @NonNull Chat newChat) {
+            return Objects.equals(oldChat.recentMessageId, newChat.recentMessageId)
+                    && Objects.equals(oldChat.recentMessageContent, newChat.recentMessageContent)
+                    && Objects.equals(oldChat.recentMessageSenderId, newChat.recentMessageSenderId)
+                    && Objects.equals(oldChat.recentMessageSenderName, newChat.recentMessageSenderName)
+                    && oldChat.recentMessageSenderAvatarVersion == newChat.recentMessageSenderAvatarVersion
+                    && Objects.equals(oldChat.recentMessageSentDate, newChat.recentMessageSentDate);
+        }
+    };
 
     /**
      * Android Context for inflating layouts and starting activities.
@@ -43,32 +63,22 @@ public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHold
     private final Context context;
 
     /**
-     * Reference to Firebase Firestore for fetching message/user data on demand.
-     */
-    private final FirebaseFirestore firestore;
-
-    /**
-     * In-memory cache for storing User objects to avoid repeated Firestore lookups.
-     */
-    private final ConcurrentHashMap<String, User> userCache;
-
-    /**
-     * For retrieving the current user ID and other preferences if needed.
+     * ID of the current user, used to label the user's own recent messages.
      */
-    private final PreferenceManager preferenceManager;
+    private final String currentUserId;
 
     /**
-     * Constructor for ChatsAdapter.
+     * Constructor for ChatsAdapter. The adapter starts empty.
      *
-     * @param chatList The list of Chat objects to display.
-     * @param context  The context for layout inflater and starting activities.
+     * @param context The context for layout inflater and starting activities.
      */
-    public ChatsAdapter(List<Chat> chatList, Context context) {
-        this.chatList = chatList;
+    public ChatsAdapter(Context context) {
+        super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+                .setBackgroundThreadExecutor(AppExecutors.getInstance().computation())
+                .build());
+        setHasStableIds(true);
         this.context = context;
-        this.firestore = FirebaseFirestore.getInstance();
-        this.userCache = new ConcurrentHashMap<>();
-        this.preferenceManager = PreferenceManager.getInstance(context);
+        this.currentUserId = PreferenceManager.getInstance(context).getString(Constants.KEY_ID, "");
     }
 
     /**
@@ -96,7 +106,7 @@ public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHold
      */
     @Override
     public void onBindViewHolder(@NonNull ChatViewHolder holder, int position) {
-        final Chat chat = chatList.get(position);
+        final Chat chat = getItem(position);
         holder.bind(chat);
         holder.itemView.setOnClickListener(view -> {
             Intent intent = new Intent(context, MessagingActivity.class);
@@ -106,13 +116,14 @@ public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHold
     }
 
     /**
-     * Returns the total number of chat items in the data set.
+     * Returns the stable ID of the row at the given position, derived from its chat ID.
      *
-     * @return The size of chatList.
+     * @param position The position of the row.
+     * @return The stable row ID.
      */
     @Override
-    public int getItemCount() {
-        return chatList.size();
+    public long getItemId(int position) {
+        return Utilities.toStableId(getItem(position).id);
     }
 
     /**
@@ -138,125 +149,52 @@ public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHold
 
         /**
          * Binds a Chat object's data to this ViewHolder's views.
+         * The recent message is rendered from the preview embedded in the chat, so binding never reads Firestore.
          *
          * @param chat The Chat object to display.
          */
         public void bind(final Chat chat) {
             binding.messageChatId.setText(chat.id);
+            bindSenderAvatar(chat);
 
             if (chat.recentMessageId.isEmpty()) {
                 binding.chatMessageUserName.setText("");
                 binding.chatMessageContent.setText("No message");
                 binding.chatMessageTimestamp.setText("");
-                binding.chatMessageUserImage.setImageResource(R.drawable.ic_profile);
-            } else {
-                fetchRecentMessageAndBind(chat);
+                return;
             }
-        }
-
-        /**
-         * Fetches the recent message from Firestore using the given Chat's recentMessageId.
-         * Once fetched, we display the message content/timestamp and the sender's data.
-         *
-         * @param chat The Chat object containing the recentMessageId and chatId.
-         */
-        private void fetchRecentMessageAndBind(final Chat chat) {
-            firestore.collection(Constants.KEY_COLLECTION_CHATS)
-                    .document(chat.id)
-                    .collection(Constants.KEY_COLLECTION_MESSAGES)
-                    .document(chat.recentMessageId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            Message recentMessage = documentSnapshot.toObject(Message.class);
-                            if (recentMessage != null) {
-                                binding.chatMessageContent.setText(recentMessage.content);
-                                binding.chatMessageTimestamp.setText(formatDate(recentMessage.sentDate));
-                                fetchSenderAndBindData(recentMessage.senderId);
-                                return;
-                            }
-                        }
-                        showNoMessageData();
-                    })
-                    .addOnFailureListener(e -> {
-                        showNoMessageData();
-                        Log.e("CHATS_ADAPTER", "Error fetching recent message: " + chat.recentMessageId, e);
-                    });
-        }
 
-        /**
-         * Fetches the sender (User) from Firestore. Once retrieved, we display the sender's details
-         * in the chat preview (profile picture, display name).
-         *
-         * @param senderId The ID of the user who sent the recent message.
-         */
-        private void fetchSenderAndBindData(final String senderId) {
-            if (userCache.containsKey(senderId)) {
-                User cachedUser = userCache.get(senderId);
-                if (cachedUser != null) {
-                    bindSenderData(cachedUser);
-                    return;
-                }
-            }
-            fetchUserFromFirestore(senderId);
+            binding.chatMessageContent.setText(chat.recentMessageContent);
+            binding.chatMessageTimestamp.setText(formatDate(chat.recentMessageSentDate));
+            bindSenderName(chat);
         }
 
         /**
-         * Actually fetches a User object from Firestore and then caches (even if null),
-         * ensuring we don't repeatedly fetch the same user.
+         * Shows the recent message sender's avatar by the version embedded in the preview, so the sender's
+         * user document is never read. Previews without a version show the default picture.
          *
-         * @param senderId The user ID to fetch from Firestore.
+         * @param chat The Chat object containing the recent message preview.
          */
-        private void fetchUserFromFirestore(final String senderId) {
-            firestore.collection(Constants.KEY_COLLECTION_USERS)
-                    .document(senderId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            User user = documentSnapshot.toObject(User.class);
-                            if (user != null) {
-                                userCache.put(senderId, user);
-                                bindSenderData(user);
-                                return;
-                            }
-                        }
-                        userCache.put(senderId, new User(senderId));
-                        showDefaultSenderData();
-
-                    })
-                    .addOnFailureListener(e -> {
-                        userCache.put(senderId, new User(senderId));
-                        showDefaultSenderData();
-                        Log.e("ChatsAdapter", "Failed to fetch user for senderId=" + senderId, e);
-                    });
+        private void bindSenderAvatar(Chat chat) {
+            AvatarCache.getInstance(context).loadAvatar(binding.chatMessageUserImage,
+                    chat.recentMessageSenderId, chat.recentMessageSenderAvatarVersion, null);
         }
 
         /**
-         * Binds the sender's data (display name, profile picture) to this ViewHolder's UI elements.
+         * Binds the recent message sender's display name to this ViewHolder's UI elements.
          *
-         * @param user The sender's User object retrieved from Firestore.
+         * @param chat The Chat object containing the recent message preview.
          */
-        private void bindSenderData(User user) {
+        private void bindSenderName(Chat chat) {
             String displayName;
-            if (!user.firstName.isEmpty() && !user.lastName.isEmpty()) {
-                displayName = user.firstName + " " + user.lastName;
-            } else if (!user.email.isEmpty()) {
-                displayName = user.email;
-            } else if (!user.phone.isEmpty()) {
-                displayName = user.phone;
+            if (currentUserId.equals(chat.recentMessageSenderId)) {
+                displayName = "Me";
+            } else if (chat.recentMessageSenderName != null && !chat.recentMessageSenderName.isEmpty()) {
+                displayName = chat.recentMessageSenderName;
             } else {
                 displayName = "unknown sender";
             }
-
             binding.chatMessageUserName.setText(displayName);
-            binding.chatMessageUserImage.setImageResource(R.drawable.ic_profile);
-
-            if (user.image != null && !user.image.isEmpty()) {
-                android.graphics.Bitmap senderBitmap = User.getBitmapFromEncodedString(user.image);
-                if (senderBitmap != null) {
-                    binding.chatMessageUserImage.setImageBitmap(senderBitmap);
-                }
-            }
         }
 
         /**
@@ -269,25 +207,8 @@ public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHold
             if (date == null) {
                 return "";
             }
-            java.text.SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
             return dateFormat.format(date);
         }
-
-        /**
-         * When there's no valid recent message, we clear or hide data in the preview.
-         */
-        private void showNoMessageData() {
-            binding.chatMessageContent.setText("");
-            binding.chatMessageTimestamp.setText("");
-            showDefaultSenderData();
-        }
-
-        /**
-         * Sets a default sender name/picture if the user is unavailable.
-         */
-        private void showDefaultSenderData() {
-            binding.chatMessageUserName.setText("unknown sender");
-            binding.chatMessageUserImage.setImageResource(R.drawable.ic_profile);
-        }
     }
 }
\ No newline at end of file
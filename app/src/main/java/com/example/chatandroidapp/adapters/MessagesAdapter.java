@@ -1,9 +1,7 @@
 package com.example.chatandroidapp.adapters;
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,24 +9,26 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.chatandroidapp.R;
+import com.example.chatandroidapp.database.UserDirectory;
 import com.example.chatandroidapp.databinding.ItemMessageBinding;
 import com.example.chatandroidapp.models.Message;
 import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AvatarCache;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.chatandroidapp.utilities.Utilities;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 /**
  * Adapter class for displaying chat messages.
  * Each message can be displayed as "sent" by the current user or "received" from another user.
- * For received messages, the adapter attempts to load the sender's details from a Firestore-based cache.
+ * For received messages, the sender's details are loaded through the shared UserDirectory.
  */
 public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.MessageViewHolder> {
 
@@ -43,14 +43,14 @@ public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.Messag
     private final String currentUserId;
 
     /**
-     * A reference to the Firestore database for fetching sender user data of received messages.
+     * App-wide cache of sender User objects, preventing repeated Firestore lookups.
      */
-    private final FirebaseFirestore firestore;
+    private final UserDirectory userDirectory;
 
     /**
-     * A cache for storing sender User objects, preventing repeated Firestore lookups.
+     * IDs of messages written locally but not yet confirmed by the server.
      */
-    private final ConcurrentHashMap<String, User> userCache;
+    private final Set<String> pendingMessageIds = new HashSet<>();
 
     /**
      * The context of the Activity or Fragment using this adapter.
@@ -70,8 +70,10 @@ public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.Messag
 
         PreferenceManager preferenceManager = PreferenceManager.getInstance(context);
         this.currentUserId = preferenceManager.getString(Constants.KEY_ID, "");
-        this.firestore = FirebaseFirestore.getInstance();
-        this.userCache = new ConcurrentHashMap<>();
+        this.userDirectory = UserDirectory.getInstance();
+
+        // Stable IDs let the RecyclerView keep rows in place across incremental snapshot updates
+        setHasStableIds(true);
     }
 
     /**
@@ -100,6 +102,32 @@ public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.Messag
         holder.bind(message);
     }
 
+    /**
+     * Marks a message as pending (written locally, not yet confirmed by the server) or confirmed.
+     * The caller is responsible for notifying the adapter of the affected row.
+     *
+     * @param messageId The ID of the message.
+     * @param isPending Whether the message is still pending.
+     */
+    public void setMessagePending(String messageId, boolean isPending) {
+        if (isPending) {
+            pendingMessageIds.add(messageId);
+        } else {
+            pendingMessageIds.remove(messageId);
+        }
+    }
+
+    /**
+     * Returns a stable ID for the message at the given position, derived from its Firestore document ID.
+     *
+     * @param position The position of the Message in the list.
+     * @return The stable item ID of the message.
+     */
+    @Override
+    public long getItemId(int position) {
+        return Utilities.toStableId(messagesList.get(position).id);
+    }
+
     /**
      * Returns the total number of items in the data set held by the adapter.
      *
@@ -135,6 +163,11 @@ public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.Messag
          */
         private final ItemMessageBinding binding;
 
+        /**
+         * ID of the sender whose details this ViewHolder currently shows, used to ignore late lookups after recycling.
+         */
+        private String boundSenderId;
+
         /**
          * Constructs a new MessageViewHolder with the given binding.
          *
@@ -166,11 +199,14 @@ public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.Messag
          * @param message The sent Message object.
          */
         private void showSentMessage(Message message) {
+            boundSenderId = null;
             binding.messageReceivedLayout.setVisibility(View.GONE);
 
+            boolean isPending = pendingMessageIds.contains(message.id);
             binding.messageSentLayout.setVisibility(View.VISIBLE);
+            binding.messageSentLayout.setAlpha(isPending ? 0.5f : 1f);
             binding.messageSentContent.setText(message.content);
-            binding.messageSentTimestamp.setText(formatDate(message.sentDate));
+            binding.messageSentTimestamp.setText(isPending ? "sending..." : formatDate(message.sentDate));
             binding.messageSentUserName.setText("Me");
         }
 
@@ -186,17 +222,15 @@ public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.Messag
             binding.messageReceivedContent.setText(message.content);
             binding.messageReceivedTimestamp.setText(formatDate(message.sentDate));
 
-            // Try to retrieve the sender's details from the cache or Firestore
-            if (userCache.containsKey(message.senderId)) {
-                User cachedSender = userCache.get(message.senderId);
-                if (cachedSender != null) {
-                    bindUserData(cachedSender);
-                } else {
-                    fetchSenderAndBindData(message.senderId);
+            // Retrieve the sender's details from the shared directory; the row may be recycled before they arrive
+            boundSenderId = message.senderId;
+            binding.messageReceivedUserName.setText("");
+            AvatarCache.getInstance(context).showDefault(binding.messageReceivedUserImage);
+            userDirectory.getUser(message.senderId, sender -> {
+                if (message.senderId.equals(boundSenderId)) {
+                    bindUserData(sender);
                 }
-            } else {
-                fetchSenderAndBindData(message.senderId);
-            }
+            });
         }
 
         /**
@@ -218,44 +252,9 @@ public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.Messag
             }
 
             binding.messageReceivedUserName.setText(displayName);
-            binding.messageReceivedUserImage.setImageResource(R.drawable.ic_profile);
 
-            // If there's a custom profile image, decode and display it
-            if (!TextUtils.isEmpty(sender.image)) {
-                Bitmap senderBitmap = User.getBitmapFromEncodedString(sender.image);
-                if (senderBitmap != null) {
-                    binding.messageReceivedUserImage.setImageBitmap(senderBitmap);
-                }
-            }
-        }
-
-        /**
-         * Fetches a User's information from Firestore using the given senderId and, upon completion,
-         * binds the user data to the UI or sets default user data if fetching fails or the user is not found.
-         *
-         * @param senderId The ID of the user to fetch from Firestore.
-         */
-        private void fetchSenderAndBindData(final String senderId) {
-            firestore.collection(Constants.KEY_COLLECTION_USERS)
-                    .document(senderId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        User sender = new User(senderId);
-                        if (documentSnapshot.exists()) {
-                            sender = documentSnapshot.toObject(User.class);
-                        }
-                        if (sender != null) {
-                            userCache.put(senderId, sender);
-                            bindUserData(sender);
-                        }
-
-                    })
-                    .addOnFailureListener(e -> {
-                        User sender = new User(senderId);
-                        userCache.put(senderId, sender);
-                        bindUserData(sender);
-                        Log.e("MESSAGES_ADAPTER", "Failed to fetch user data for senderId: " + senderId, e);
-                    });
+            // Show the sender's avatar, loaded once per version off the main thread and shared across rows
+            AvatarCache.getInstance(context).loadAvatar(binding.messageReceivedUserImage, sender);
         }
     }
 }
\ No newline at end of file
@@ -1,32 +1,72 @@
 package com.example.chatandroidapp.adapters;
 
+import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.chatandroidapp.R;
 import com.example.chatandroidapp.databinding.ItemTaskBinding;
 import com.example.chatandroidapp.models.Task;
+import com.example.chatandroidapp.utilities.AppExecutors;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * TasksAdapter handles displaying tasks and managing user interactions like
  * marking tasks as completed, editing, and deleting.
+ *
+ * <p>The shown list is replaced through submitList and diffed on the computation executor,
+ * so a change to one task only rebinds that task's row.</p>
+ *
+ * <p>Long-pressing a row starts a selection; while tasks are selected, tapping a row toggles it instead of
+ * opening it, so several tasks can be completed, rescheduled or deleted at once. Only tasks in the shown list
+ * stay selected.</p>
  */
-public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHolder> {
-    private final List<Task> tasks; // List of tasks to display
+public class TasksAdapter extends ListAdapter<Task, TasksAdapter.TaskViewHolder> {
+
+    /**
+     * Matches tasks by ID and compares the fields shown in a row.
+     */
+    private static final DiffUtil.ItemCallback<Task> DIFF_CALLBACK = new DiffUtil.ItemCallback<Task>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Task oldTask, @NonNull Task newTask) {
+            return oldTask.id.equals(newTask.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Task oldTask, @NonNull Task newTask) {
+            return oldTask.isCompleted == newTask.isCompleted
+                    && Objects.equals(oldTask.title, newTask.title)
+                    && Objects.equals(oldTask.description, newTask.description)
+                    && Objects.equals(oldTask.completionDate, newTask.completionDate)
+                    && Objects.equals(oldTask.completionTime, newTask.completionTime);
+        }
+    };
+
     private final TaskAdapterListener listener; // Callback listener for interactions
+    private final Set<String> selectedTaskIds = new LinkedHashSet<>(); // Selected tasks, in selection order
 
     /**
-     * Constructor for TasksAdapter.
+     * Constructor for TasksAdapter. The adapter starts empty.
      *
-     * @param tasks    The list of tasks to display.
      * @param listener The listener for task interactions.
      */
-    public TasksAdapter(List<Task> tasks, TaskAdapterListener listener) {
-        this.tasks = tasks;
+    public TasksAdapter(TaskAdapterListener listener) {
+        super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+                .setBackgroundThreadExecutor(AppExecutors.getInstance().computation())
+                .build());
         this.listener = listener;
     }
 
@@ -40,13 +80,88 @@ public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHold
 
     @Override
     public void onBindViewHolder(@NonNull TaskViewHolder holder, int position) {
-        Task task = tasks.get(position);
+        Task task = getItem(position);
         holder.bind(task);
     }
 
+    // --- SELECTION ---
+
+    /**
+     * Returns whether any task is selected, in which case taps toggle rows instead of opening them.
+     *
+     * @return True if the adapter is in selection mode.
+     */
+    public boolean isSelectionMode() {
+        return !selectedTaskIds.isEmpty();
+    }
+
+    /**
+     * Returns the IDs of the selected tasks.
+     *
+     * @return A new list of the IDs, in the order they were selected.
+     */
+    @NonNull
+    public List<String> getSelectedTaskIds() {
+        return new ArrayList<>(selectedTaskIds);
+    }
+
+    /**
+     * Deselects every task and leaves selection mode.
+     */
+    public void clearSelection() {
+        if (selectedTaskIds.isEmpty()) {
+            return;
+        }
+        selectedTaskIds.clear();
+        notifyItemRangeChanged(0, getItemCount()); // Every row re-enables its buttons
+        listener.onSelectionChanged(0);
+    }
+
+    /**
+     * Drops the selected tasks that are no longer shown, e.g. after another day was picked or a task was
+     * deleted elsewhere, so a bulk operation only ever applies to tasks on screen.
+     *
+     * @param previousList The list shown before.
+     * @param currentList  The list shown now.
+     */
     @Override
-    public int getItemCount() {
-        return tasks.size();
+    public void onCurrentListChanged(@NonNull List<Task> previousList, @NonNull List<Task> currentList) {
+        if (selectedTaskIds.isEmpty()) {
+            return;
+        }
+        Set<String> shownTaskIds = new HashSet<>();
+        for (Task task : currentList) {
+            shownTaskIds.add(task.id);
+        }
+        if (!selectedTaskIds.retainAll(shownTaskIds)) {
+            return;
+        }
+        if (selectedTaskIds.isEmpty()) {
+            notifyItemRangeChanged(0, getItemCount()); // Every row leaves selection mode
+        }
+        listener.onSelectionChanged(selectedTaskIds.size());
+    }
+
+    /**
+     * Selects or deselects the task at a position, entering or leaving selection mode as needed.
+     *
+     * @param position The adapter position of the task.
+     */
+    private void toggleSelection(int position) {
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        boolean wasSelectionMode = isSelectionMode();
+        String taskId = getItem(position).id;
+        if (!selectedTaskIds.remove(taskId)) {
+            selectedTaskIds.add(taskId);
+        }
+        if (wasSelectionMode != isSelectionMode()) {
+            notifyItemRangeChanged(0, getItemCount()); // Every row switches between tap modes
+        } else {
+            notifyItemChanged(position);
+        }
+        listener.onSelectionChanged(selectedTaskIds.size());
     }
 
 
@@ -74,6 +189,13 @@ public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHold
          * @param task The task to delete.
          */
         void onDeleteTask(Task task);
+
+        /**
+         * Called when tasks are selected or deselected.
+         *
+         * @param selectedCount The number of selected tasks, 0 once selection mode ends.
+         */
+        void onSelectionChanged(int selectedCount);
     }
 
 
@@ -112,6 +234,22 @@ public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHold
 
             // Handle delete button click
             binding.taskDeleteButton.setOnClickListener(v -> listener.onDeleteTask(task));
+
+            // Highlight selected rows; per-row actions are disabled while selecting
+            boolean selectionMode = isSelectionMode();
+            itemView.setBackgroundColor(selectedTaskIds.contains(task.id)
+                    ? ContextCompat.getColor(itemView.getContext(), R.color.selection)
+                    : Color.TRANSPARENT);
+            binding.taskIsCompleted.setEnabled(!selectionMode);
+            binding.taskEditButton.setEnabled(!selectionMode);
+            binding.taskDeleteButton.setEnabled(!selectionMode);
+
+            // Long-press starts or extends a selection; taps toggle rows while selecting
+            itemView.setOnLongClickListener(v -> {
+                toggleSelection(getAdapterPosition());
+                return true;
+            });
+            itemView.setOnClickListener(selectionMode ? v -> toggleSelection(getAdapterPosition()) : null);
         }
     }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.example.chatandroidapp.adapters;
 
-import android.graphics.Bitmap;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -13,8 +12,11 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.chatandroidapp.R;
 import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AvatarCache;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Adapter for displaying a list of users in a RecyclerView.
@@ -24,6 +26,7 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
 
     private final List<User> usersList;
     private final OnUserSelectedListener listener;
+    private final Set<String> selectedUserIds = new HashSet<>(); // Kept here so recycled rows show the right state
 
     /**
      * Constructor to initialize the adapter with a list of users and a selection listener.
@@ -53,7 +56,7 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
         // Bind user data and set up click listener
-        holder.bind(usersList.get(position), listener);
+        holder.bind(usersList.get(position), listener, selectedUserIds);
     }
 
     /**
@@ -105,10 +108,11 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
         /**
          * Binds user data to the views and sets up the checkbox listener.
          *
-         * @param user     The user data to display.
-         * @param listener The listener for user selection events.
+         * @param user            The user data to display.
+         * @param listener        The listener for user selection events.
+         * @param selectedUserIds The IDs of the selected users, updated as the checkbox changes.
          */
-        private void bind(User user, OnUserSelectedListener listener) {
+        private void bind(User user, OnUserSelectedListener listener, Set<String> selectedUserIds) {
             // Determine the user's full name or fallback to "unknown user"
             String userName;
             if (user.firstName != null && !user.firstName.isEmpty() && user.lastName != null && !user.lastName.isEmpty()) {
@@ -122,14 +126,8 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
             }
             name.setText(userName);
 
-            // Load user profile image or fallback to a default image
-            image.setImageResource(R.drawable.ic_profile);
-            if (user.image != null && !user.image.isEmpty()) {
-                Bitmap userBitmap = User.getBitmapFromEncodedString(user.image);
-                if (userBitmap != null) {
-                    image.setImageBitmap(userBitmap);
-                }
-            }
+            // Load user profile image or fallback to a default image; loaded once per avatar version, off the main thread
+            AvatarCache.getInstance(image.getContext()).loadAvatar(image, user);
 
             // Display the user's phone number or email, or fallback if unavailable
             if (user.phone != null && !user.phone.isEmpty()) {
@@ -142,10 +140,15 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
 
             // Manage checkbox state and listener
             checkBox.setOnCheckedChangeListener(null); // Prevent callbacks during recycling
-            checkBox.setChecked(false);
-            checkBox.setOnCheckedChangeListener(
-                    (buttonView, isChecked) -> listener.onUserSelected(user, isChecked)
-            );
+            checkBox.setChecked(selectedUserIds.contains(user.id));
+            checkBox.setOnCheckedChangeListener((buttonView, isChecked) -> {
+                if (isChecked) {
+                    selectedUserIds.add(user.id);
+                } else {
+                    selectedUserIds.remove(user.id);
+                }
+                listener.onUserSelected(user, isChecked);
+            });
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.example.chatandroidapp.database;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AppExecutors;
+import com.example.chatandroidapp.utilities.AvatarEncoder;
+import com.example.chatandroidapp.utilities.Constants;
+import com.example.chatandroidapp.utilities.PreferenceManager;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Map;
+
+/**
+ * AvatarMigration brings the signed-in user's document up to date with the current schema.
+ * An inline Base64 image, from before the Avatars store existed, is re-encoded into the AvatarEncoder variants,
+ * which are written together with the user's new avatarVersion and the removal of the inline image in one WriteBatch.
+ * A document without updatedAt, from before contacts were synced incrementally, gets one, so other users' contact
+ * syncs pick it up. Each user only migrates their own document, so no client writes other users' documents.
+ * Once done, the migration is recorded for the user, so it runs once per user and device.
+ */
+public class AvatarMigration {
+    private static final String TAG = "AVATAR_MIGRATION";
+
+    private static volatile AvatarMigration instance; // Volatile for thread-safe singleton
+    private final FirebaseFirestore firestore;
+    private final PreferenceManager preferenceManager;
+    private boolean isRunning = false;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     *
+     * @param context The context used to read the preferences.
+     */
+    private AvatarMigration(Context context) {
+        firestore = FirebaseFirestore.getInstance();
+        preferenceManager = PreferenceManager.getInstance(context);
+    }
+
+    /**
+     * Provides the Singleton instance of AvatarMigration using double-checked locking for thread safety.
+     *
+     * @param context The context used to read the preferences.
+     * @return The Singleton instance of AvatarMigration.
+     */
+    public static AvatarMigration getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AvatarMigration.class) {
+                if (instance == null) {
+                    instance = new AvatarMigration(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Starts migrating the current user's document unless that already finished or is running.
+     */
+    public synchronized void migrateIfNeeded() {
+        String userId = preferenceManager.getString(Constants.KEY_ID, "");
+        if (isRunning || userId.isEmpty() || userId.equals(preferenceManager.getString(Constants.KEY_PROFILE_MIGRATED_USER, ""))) {
+            return;
+        }
+
+        isRunning = true;
+        // Decoding and re-encoding the image is CPU-bound, so the document is handled on the computation executor
+        firestore.collection(Constants.KEY_COLLECTION_USERS)
+                .document(userId)
+                .get()
+                .addOnSuccessListener(AppExecutors.getInstance().computation(), document -> migrate(userId, document))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to read the user document.", e); // Retried the next time the app starts
+                    finish();
+                });
+    }
+
+    /**
+     * Moves the inline image of the user document into the Avatars store, if it has one, and sets the updatedAt
+     * of a document written before that field existed, so contact syncs ordered by it find the user.
+     * Runs on the computation executor.
+     *
+     * @param userId   The ID of the current user.
+     * @param document The current user's document.
+     */
+    private void migrate(String userId, DocumentSnapshot document) {
+        if (!document.exists()) {
+            markMigrated(userId);
+            return;
+        }
+
+        Long avatarVersion = document.getLong(Constants.KEY_AVATAR_VERSION);
+        String encodedImage = document.getString(Constants.KEY_IMAGE);
+        Bitmap bitmap = null;
+        if ((avatarVersion == null || avatarVersion == 0) && encodedImage != null && !encodedImage.isEmpty()) {
+            try {
+                bitmap = User.getBitmapFromEncodedString(encodedImage);
+            } catch (IllegalArgumentException e) {
+                bitmap = null; // Not valid Base64
+            }
+            if (bitmap == null) {
+                Log.w(TAG, "Leaving the undecodable inline image of the current user in place.");
+            }
+        }
+
+        WriteBatch batch = firestore.batch();
+        final long version;
+        if (bitmap != null) {
+            Map<Integer, byte[]> variants = AvatarEncoder.encode(bitmap);
+            bitmap.recycle();
+            version = AvatarStore.newVersion();
+            AvatarStore.getInstance().updateAvatar(batch, userId, version, variants); // Also sets updatedAt
+        } else if (document.get(Constants.KEY_UPDATED_AT) == null) {
+            version = 0;
+            batch.update(document.getReference(), Constants.KEY_UPDATED_AT, FieldValue.serverTimestamp());
+        } else {
+            markMigrated(userId);
+            return;
+        }
+
+        batch.commit()
+                .addOnSuccessListener(unused -> {
+                    if (version > 0) {
+                        UserDirectory.getInstance().invalidate(userId);
+                        preferenceManager.putLong(Constants.KEY_AVATAR_VERSION, version);
+                    }
+                    markMigrated(userId);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to migrate the user document.", e); // Retried the next time the app starts
+                    finish();
+                });
+    }
+
+    /**
+     * Records that the user's document needs no further migration.
+     *
+     * @param userId The ID of the current user.
+     */
+    private void markMigrated(String userId) {
+        preferenceManager.putString(Constants.KEY_PROFILE_MIGRATED_USER, userId);
+        finish();
+    }
+
+    /**
+     * Allows the migration to be started again.
+     */
+    private synchronized void finish() {
+        isRunning = false;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.chatandroidapp.database;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.chatandroidapp.utilities.AvatarEncoder;
+import com.example.chatandroidapp.utilities.Constants;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AvatarStore keeps profile images out of the user documents. Each size variant of an avatar is stored
+ * as binary data in its own document of the Avatars collection, keyed by user ID and size, while the user
+ * document only carries a small avatarVersion. Reading a user therefore never downloads the image,
+ * and clients fetch only the variant they show, once per version.
+ */
+public class AvatarStore {
+    private static final String TAG = "AVATAR_STORE";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_VERSION = "version";
+    private static final String FIELD_SIZE = "size";
+    private static final String FIELD_DATA = "data";
+
+    private static volatile AvatarStore instance; // Volatile for thread-safe singleton
+    private final FirebaseFirestore firestore;
+
+    /**
+     * Callback delivering a fetched avatar on the main thread.
+     */
+    public interface OnAvatarLoadedListener {
+        /**
+         * Called with the avatar's image bytes, or null if the user has no avatar or it could not be loaded.
+         *
+         * @param imageBytes The encoded image bytes.
+         */
+        void onAvatarLoaded(@Nullable byte[] imageBytes);
+    }
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     */
+    private AvatarStore() {
+        firestore = FirebaseFirestore.getInstance();
+    }
+
+    /**
+     * Provides the Singleton instance of AvatarStore using double-checked locking for thread safety.
+     *
+     * @return The Singleton instance of AvatarStore.
+     */
+    public static AvatarStore getInstance() {
+        if (instance == null) {
+            synchronized (AvatarStore.class) {
+                if (instance == null) {
+                    instance = new AvatarStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Creates a new avatar version. Versions only need to differ between uploads of the same user.
+     *
+     * @return The new version.
+     */
+    public static long newVersion() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Adds the writes of an avatar's variants to a batch. The caller writes the same version to the user document
+     * in the same batch, so both always match.
+     *
+     * @param batch    The batch to add the writes to.
+     * @param userId   The ID of the user.
+     * @param version  The avatar version, from newVersion().
+     * @param variants The encoded image variants keyed by size, from AvatarEncoder.
+     */
+    public void writeAvatar(@NonNull WriteBatch batch, @NonNull String userId, long version, @NonNull Map<Integer, byte[]> variants) {
+        for (Map.Entry<Integer, byte[]> variant : variants.entrySet()) {
+            Map<String, Object> avatar = new HashMap<>();
+            avatar.put(FIELD_USER_ID, userId);
+            avatar.put(FIELD_VERSION, version);
+            avatar.put(FIELD_SIZE, variant.getKey());
+            avatar.put(FIELD_DATA, Blob.fromBytes(variant.getValue()));
+            batch.set(avatarReference(userId, variant.getKey()), avatar);
+        }
+    }
+
+    /**
+     * Adds the writes of a new avatar and the matching user document fields to a batch.
+     * The legacy inline image is removed at the same time.
+     *
+     * @param batch    The batch to add the writes to.
+     * @param userId   The ID of the user.
+     * @param version  The avatar version, from newVersion().
+     * @param variants The encoded image variants keyed by size, from AvatarEncoder.
+     */
+    public void updateAvatar(@NonNull WriteBatch batch, @NonNull String userId, long version, @NonNull Map<Integer, byte[]> variants) {
+        writeAvatar(batch, userId, version, variants);
+        batch.update(firestore.collection(Constants.KEY_COLLECTION_USERS).document(userId),
+                Constants.KEY_AVATAR_VERSION, version,
+                Constants.KEY_IMAGE, FieldValue.delete(),
+                Constants.KEY_UPDATED_AT, FieldValue.serverTimestamp());
+    }
+
+    /**
+     * Adds the deletion of a user's avatar variants to a batch.
+     *
+     * @param batch  The batch to add the deletions to.
+     * @param userId The ID of the user.
+     */
+    public void deleteAvatar(@NonNull WriteBatch batch, @NonNull String userId) {
+        for (int size : AvatarEncoder.SIZES) {
+            batch.delete(avatarReference(userId, size));
+        }
+    }
+
+    /**
+     * Fetches one size variant of a given version of a user's avatar. The variant documents are replaced
+     * on every upload, so a variant of another version, e.g. while a new upload is in flight, is not delivered.
+     *
+     * @param userId   The ID of the user.
+     * @param size     The variant size, one of AvatarEncoder.SIZES.
+     * @param version  The expected avatar version, from the user document.
+     * @param listener The listener to notify with the image bytes.
+     */
+    public void fetchAvatar(@NonNull String userId, int size, long version, @NonNull OnAvatarLoadedListener listener) {
+        avatarReference(userId, size)
+                .get()
+                .addOnSuccessListener(documentSnapshot -> deliverData(documentSnapshot, version, listener))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to fetch avatar for userId: " + userId, e);
+                    listener.onAvatarLoaded(null);
+                });
+    }
+
+    /**
+     * Delivers the image bytes of an avatar document, or null if it has none or holds another version.
+     *
+     * @param documentSnapshot The avatar document.
+     * @param version          The expected avatar version.
+     * @param listener         The listener to notify with the image bytes.
+     */
+    private static void deliverData(DocumentSnapshot documentSnapshot, long version, OnAvatarLoadedListener listener) {
+        Long storedVersion = documentSnapshot.exists() ? documentSnapshot.getLong(FIELD_VERSION) : null;
+        if (storedVersion == null || storedVersion != version) {
+            Log.d(TAG, "Avatar " + documentSnapshot.getId() + " does not hold version " + version);
+            listener.onAvatarLoaded(null);
+            return;
+        }
+        Blob data = documentSnapshot.getBlob(FIELD_DATA);
+        listener.onAvatarLoaded(data != null ? data.toBytes() : null);
+    }
+
+    /**
+     * Returns the reference to one size variant of a user's avatar.
+     *
+     * @param userId The ID of the user.
+     * @param size   The variant size.
+     * @return The avatar document reference.
+     */
+    private DocumentReference avatarReference(String userId, int size) {
+        return firestore.collection(Constants.KEY_COLLECTION_AVATARS).document(userId + "_" + size);
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.chatandroidapp.database;
+
+import androidx.annotation.NonNull;
+
+import com.example.chatandroidapp.models.User;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * ContactSearchIndex is an in-memory search index over the contact directory.
+ * Each contact is split into normalized tokens (first name, last name, email and its parts, phone digits),
+ * and every token is indexed by its leading one- and two-character prefixes and by its trigrams.
+ *
+ * <p>A query term looks up candidates through the posting lists of its grams, so only contacts sharing
+ * enough of the term's grams to be within its tolerated typos are examined. Candidates are then verified
+ * and ranked per term: exact token, token prefix, substring, and finally a token prefix within one typo
+ * (two for long terms). Every term of a query must match some token of a contact.</p>
+ *
+ * <p>Contacts are appended with add() as they are loaded, without reindexing the earlier ones.
+ * Building, adding and searching are CPU work and must run off the main thread,
+ * e.g. on {@link com.example.chatandroidapp.utilities.AppExecutors#computation()};
+ * they are synchronized, so an index can be shared between threads.</p>
+ */
+public class ContactSearchIndex {
+    private static final char BOUNDARY = '^'; // Marks the start of a token in its grams
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]");
+
+    private static final int SCORE_EXACT = 4;
+    private static final int SCORE_PREFIX = 3;
+    private static final int SCORE_SUBSTRING = 2;
+    private static final int SCORE_FUZZY = 1;
+    private static final int GRAMS_PER_TYPO = 4; // A transposition changes up to four trigrams, a substitution three
+
+    private final List<User> contacts = new ArrayList<>();
+    private final List<String[]> tokens = new ArrayList<>(); // Normalized tokens of each contact
+    private final Map<String, PostingList> postings = new HashMap<>(); // Gram to ascending contact positions
+
+    /**
+     * Private constructor; use build().
+     */
+    private ContactSearchIndex() {
+    }
+
+    /**
+     * Builds an index over the given contacts. Results of equal rank keep the order in which contacts were added.
+     *
+     * @param contactList The contacts to index.
+     * @return The index.
+     */
+    @NonNull
+    public static ContactSearchIndex build(@NonNull List<User> contactList) {
+        ContactSearchIndex index = new ContactSearchIndex();
+        index.add(contactList);
+        return index;
+    }
+
+    /**
+     * Appends contacts to the index. Only the new contacts are tokenized and indexed.
+     *
+     * @param contactList The contacts to append.
+     */
+    public synchronized void add(@NonNull List<User> contactList) {
+        for (User contact : contactList) {
+            int position = contacts.size();
+            String[] contactTokens = tokenize(contact);
+            contacts.add(contact);
+            tokens.add(contactTokens);
+            for (String token : contactTokens) {
+                for (String gram : gramsOf(token, true)) {
+                    PostingList posting = postings.get(gram);
+                    if (posting == null) {
+                        posting = new PostingList();
+                        postings.put(gram, posting);
+                    }
+                    posting.add(position);
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the index. Contacts are ranked by the sum of their per-term scores, best first.
+     *
+     * @param query The raw search query.
+     * @return The matching contacts, or an empty list if the query has no searchable terms.
+     */
+    @NonNull
+    public synchronized List<User> search(@NonNull String query) {
+        String[] terms = splitTerms(query);
+        if (terms.length == 0 || contacts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Candidates come from the most selective term; the others are only verified
+        String leadingTerm = terms[0];
+        for (String term : terms) {
+            if (term.length() > leadingTerm.length()) {
+                leadingTerm = term;
+            }
+        }
+        int[] candidates = findCandidates(leadingTerm);
+
+        int matchCount = 0;
+        int[] matches = new int[candidates.length];
+        int[] scores = new int[candidates.length];
+        for (int position : candidates) {
+            int totalScore = 0;
+            for (String term : terms) {
+                int termScore = scoreTerm(term, tokens.get(position));
+                if (termScore == 0) {
+                    totalScore = 0;
+                    break;
+                }
+                totalScore += termScore;
+            }
+            if (totalScore > 0) {
+                matches[matchCount] = position;
+                scores[matchCount] = totalScore;
+                matchCount++;
+            }
+        }
+
+        // Sort by descending score, then by position; packed into longs to avoid boxing
+        long[] ranked = new long[matchCount];
+        for (int i = 0; i < matchCount; i++) {
+            ranked[i] = ((long) (Integer.MAX_VALUE - scores[i]) << 32) | matches[i];
+        }
+        Arrays.sort(ranked);
+
+        List<User> results = new ArrayList<>(matchCount);
+        for (long entry : ranked) {
+            results.add(contacts.get((int) entry));
+        }
+        return results;
+    }
+
+    /**
+     * Finds the contacts that share enough grams with a term to possibly match it. Each tolerated typo may
+     * change up to GRAMS_PER_TYPO grams, so a term of n grams needs at least n - GRAMS_PER_TYPO * typos of them.
+     * Short terms, where that leaves nothing to require, also take every token starting with the term's first letter.
+     *
+     * @param term The normalized term.
+     * @return The ascending positions of the candidates.
+     */
+    private int[] findCandidates(String term) {
+        List<String> grams = gramsOf(term, false);
+        if (grams.size() == 1) {
+            PostingList posting = postings.get(grams.get(0));
+            return posting != null ? posting.toArray() : new int[0];
+        }
+
+        int required = grams.size() - GRAMS_PER_TYPO * maxTypos(term);
+        if (required < 1) {
+            required = 1;
+            grams.add(BOUNDARY + term.substring(0, 1));
+        }
+
+        int[] counts = new int[contacts.size()];
+        int candidateCount = 0;
+        for (String gram : grams) {
+            PostingList posting = postings.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            for (int i = 0; i < posting.size; i++) {
+                if (++counts[posting.positions[i]] == required) {
+                    candidateCount++;
+                }
+            }
+        }
+
+        int[] candidates = new int[candidateCount];
+        int next = 0;
+        for (int position = 0; position < counts.length && next < candidateCount; position++) {
+            if (counts[position] >= required) {
+                candidates[next++] = position;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Scores how well a term matches the best of a contact's tokens.
+     *
+     * @param term        The normalized term.
+     * @param tokenValues The normalized tokens of the contact.
+     * @return The score, or 0 if no token matches.
+     */
+    private static int scoreTerm(String term, String[] tokenValues) {
+        int best = 0;
+        int typos = maxTypos(term);
+        for (String token : tokenValues) {
+            int score;
+            if (token.equals(term)) {
+                return SCORE_EXACT;
+            } else if (token.startsWith(term)) {
+                score = SCORE_PREFIX;
+            } else if (token.contains(term)) {
+                score = SCORE_SUBSTRING;
+            } else if (term.length() >= 3 && prefixDistance(term, token, typos) <= typos) {
+                score = SCORE_FUZZY;
+            } else {
+                score = 0;
+            }
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of typos tolerated in a term.
+     *
+     * @param term The normalized term.
+     * @return The maximum edit distance.
+     */
+    private static int maxTypos(String term) {
+        return term.length() >= 8 ? 2 : 1;
+    }
+
+    /**
+     * Computes the smallest edit distance between a term and any prefix of a token, counting an adjacent
+     * transposition as one edit, and giving up early once every alignment exceeds the limit.
+     *
+     * @param term  The normalized term.
+     * @param token The normalized token.
+     * @param limit The largest distance of interest.
+     * @return The distance, or limit + 1 if it exceeds the limit.
+     */
+    private static int prefixDistance(String term, String token, int limit) {
+        int columns = token.length() + 1;
+        int[] beforePrevious = new int[columns];
+        int[] previous = new int[columns];
+        int[] current = new int[columns];
+        for (int j = 0; j < columns; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= term.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j < columns; j++) {
+                int cost = term.charAt(i - 1) == token.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && term.charAt(i - 1) == token.charAt(j - 2) && term.charAt(i - 2) == token.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > limit) {
+                return limit + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+
+        int distance = limit + 1;
+        for (int value : previous) {
+            distance = Math.min(distance, value); // Any prefix of the token may end the alignment
+        }
+        return distance;
+    }
+
+    // --- NORMALIZATION ---
+
+    /**
+     * Splits a contact into its normalized, distinct search tokens.
+     *
+     * @param user The contact.
+     * @return The tokens.
+     */
+    private static String[] tokenize(User user) {
+        List<String> values = new ArrayList<>();
+        addWords(values, user.firstName);
+        addWords(values, user.lastName);
+        if (user.email != null && !user.email.isEmpty()) {
+            String email = normalize(user.email);
+            values.add(email);
+            addWords(values, email);
+        }
+        if (user.phone != null) {
+            String digits = NON_DIGITS.matcher(user.phone).replaceAll("");
+            if (!digits.isEmpty()) {
+                values.add(digits);
+            }
+        }
+
+        List<String> distinct = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (!value.isEmpty() && !distinct.contains(value)) {
+                distinct.add(value);
+            }
+        }
+        return distinct.toArray(new String[0]);
+    }
+
+    /**
+     * Adds the normalized words of a text to a list.
+     *
+     * @param values The list to add to.
+     * @param text   The text, which may be null.
+     */
+    private static void addWords(List<String> values, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        for (String word : SEPARATORS.split(normalize(text))) {
+            if (!word.isEmpty()) {
+                values.add(word);
+            }
+        }
+    }
+
+    /**
+     * Splits a query into normalized terms. Phone-like terms keep only their digits, so "+1 (555)" matches "1555...".
+     *
+     * @param query The raw query.
+     * @return The terms.
+     */
+    private static String[] splitTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String part : normalize(query).split("\\s+")) {
+            String term = part.matches("[+0-9()\\-.]+") ? NON_DIGITS.matcher(part).replaceAll("") : part;
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    /**
+     * Lower-cases a text and strips its accents, so "José" and "jose" match.
+     *
+     * @param text The text.
+     * @return The normalized text.
+     */
+    private static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the grams of a token: its boundary-marked one- and two-character prefixes, then all its trigrams.
+     * Queries only use the longest boundary prefix that fits, since a longer term also has trigrams.
+     *
+     * @param token       The normalized token or term.
+     * @param forIndexing True to include every prefix gram, false for the grams to look a term up by.
+     * @return The grams.
+     */
+    private static List<String> gramsOf(String token, boolean forIndexing) {
+        List<String> grams = new ArrayList<>();
+        String marked = BOUNDARY + token;
+        if (forIndexing || marked.length() == 2) {
+            grams.add(marked.substring(0, 2));
+        }
+        for (int i = 0; i + 3 <= marked.length(); i++) {
+            String gram = marked.substring(i, i + 3);
+            if (!grams.contains(gram)) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Growable posting list that skips consecutive duplicates, since contacts are added in ascending order.
+     */
+    private static class PostingList {
+        private int[] positions = new int[4];
+        private int size = 0;
+
+        void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
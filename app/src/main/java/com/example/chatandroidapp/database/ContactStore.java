@@ -0,0 +1,181 @@
+package com.example.chatandroidapp.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.chatandroidapp.models.User;
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ContactStore persists the contact directory on the device together with its sync watermark,
+ * the newest updatedAt seen on the server. ChatCreatorActivity renders contacts from disk on open
+ * and fetches only the users changed since the watermark from Firestore. Users deleted from the directory
+ * are dropped by an occasional full reconciliation, since an incremental sync never returns them.
+ *
+ * <p>Only the fields shown in the directory are stored. All methods perform disk I/O and must be called
+ * off the main thread, e.g. on {@link com.example.chatandroidapp.utilities.AppExecutors#diskIO()}.</p>
+ */
+public class ContactStore {
+    private static final String SYNC_NAME = "contacts";
+
+    private static volatile ContactStore instance; // Volatile for thread-safe singleton
+    private final LocalDatabase database;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     *
+     * @param context The context used to open the local database.
+     */
+    private ContactStore(Context context) {
+        database = LocalDatabase.getInstance(context);
+    }
+
+    /**
+     * Provides the Singleton instance of ContactStore using double-checked locking for thread safety.
+     *
+     * @param context The context used to open the local database.
+     * @return The Singleton instance of ContactStore.
+     */
+    public static ContactStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ContactStore.class) {
+                if (instance == null) {
+                    instance = new ContactStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // --- READ METHODS ---
+
+    /**
+     * Loads every stored contact, in the same first-name order Firestore pages them in.
+     *
+     * @return The stored contacts.
+     */
+    @NonNull
+    public List<User> loadAll() {
+        List<User> users = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().query(
+                LocalDatabase.TABLE_CONTACTS, null, null, null, null, null,
+                LocalDatabase.COLUMN_FIRST_NAME + " ASC, " + LocalDatabase.COLUMN_ID + " ASC")) {
+            int idIndex = cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_ID);
+            int firstNameIndex = cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_FIRST_NAME);
+            int lastNameIndex = cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_LAST_NAME);
+            int phoneIndex = cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_PHONE);
+            int emailIndex = cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_EMAIL);
+            int imageIndex = cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_IMAGE);
+            int avatarVersionIndex = cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_AVATAR_VERSION);
+
+            while (cursor.moveToNext()) {
+                User user = new User(cursor.getString(idIndex));
+                user.firstName = cursor.getString(firstNameIndex);
+                user.lastName = cursor.getString(lastNameIndex);
+                user.phone = cursor.getString(phoneIndex);
+                user.email = cursor.getString(emailIndex);
+                user.image = cursor.getString(imageIndex);
+                user.avatarVersion = cursor.getLong(avatarVersionIndex);
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Returns the sync watermark, which is only set once the whole directory has been downloaded.
+     *
+     * @return The newest updatedAt stored, or null if no complete sync has finished yet.
+     */
+    @Nullable
+    public Timestamp getWatermark() {
+        try (Cursor cursor = database.getReadableDatabase().query(
+                LocalDatabase.TABLE_SYNC_STATE,
+                new String[]{LocalDatabase.COLUMN_WATERMARK_SECONDS, LocalDatabase.COLUMN_WATERMARK_NANOS},
+                LocalDatabase.COLUMN_NAME + " = ?", new String[]{SYNC_NAME},
+                null, null, null)) {
+            return cursor.moveToFirst() ? new Timestamp(cursor.getLong(0), cursor.getInt(1)) : null;
+        }
+    }
+
+    // --- WRITE METHODS ---
+
+    /**
+     * Inserts or replaces contacts and optionally advances the watermark, in a single transaction,
+     * so the watermark never gets ahead of the stored contacts.
+     *
+     * @param users     The contacts to store.
+     * @param watermark The new watermark, or null to keep the current one.
+     */
+    public void upsert(@NonNull List<User> users, @Nullable Timestamp watermark) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (User user : users) {
+                ContentValues values = new ContentValues();
+                values.put(LocalDatabase.COLUMN_ID, user.id);
+                values.put(LocalDatabase.COLUMN_FIRST_NAME, valueOrEmpty(user.firstName));
+                values.put(LocalDatabase.COLUMN_LAST_NAME, valueOrEmpty(user.lastName));
+                values.put(LocalDatabase.COLUMN_PHONE, valueOrEmpty(user.phone));
+                values.put(LocalDatabase.COLUMN_EMAIL, valueOrEmpty(user.email));
+                values.put(LocalDatabase.COLUMN_IMAGE, valueOrEmpty(user.image));
+                values.put(LocalDatabase.COLUMN_AVATAR_VERSION, user.avatarVersion);
+                db.insertWithOnConflict(LocalDatabase.TABLE_CONTACTS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            if (watermark != null) {
+                ContentValues values = new ContentValues();
+                values.put(LocalDatabase.COLUMN_NAME, SYNC_NAME);
+                values.put(LocalDatabase.COLUMN_WATERMARK_SECONDS, watermark.getSeconds());
+                values.put(LocalDatabase.COLUMN_WATERMARK_NANOS, watermark.getNanoseconds());
+                db.insertWithOnConflict(LocalDatabase.TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes a single stored contact, e.g. once the user turned out to no longer exist.
+     *
+     * @param userId The ID of the user.
+     */
+    public void delete(String userId) {
+        database.getWritableDatabase().delete(LocalDatabase.TABLE_CONTACTS,
+                LocalDatabase.COLUMN_ID + " = ?",
+                new String[]{userId});
+    }
+
+    /**
+     * Deletes several stored contacts in a single transaction, e.g. the users a full reconciliation no longer found.
+     *
+     * @param userIds The IDs of the users.
+     */
+    public void delete(@NonNull Collection<String> userIds) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (String userId : userIds) {
+                db.delete(LocalDatabase.TABLE_CONTACTS, LocalDatabase.COLUMN_ID + " = ?", new String[]{userId});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // --- HELPERS ---
+
+    private static String valueOrEmpty(@Nullable String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.chatandroidapp.database;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * LocalDatabase is the on-device SQLite database that caches Firestore data,
+ * so screens can render immediately from disk before the network responds.
+ *
+ * <p>Everything stored here can be re-downloaded, so schema upgrades simply rebuild the tables.
+ * Uses the Singleton pattern to ensure a single connection pool for the whole application.</p>
+ */
+public class LocalDatabase extends SQLiteOpenHelper {
+    /**
+     * Name of the database file.
+     */
+    private static final String DATABASE_NAME = "chatAppCache.db";
+
+    /**
+     * Schema version, incremented whenever a table definition changes.
+     */
+    private static final int DATABASE_VERSION = 3;
+
+    // Messages table
+    static final String TABLE_MESSAGES = "messages";
+    static final String COLUMN_CHAT_ID = "chatId";
+    static final String COLUMN_ID = "id";
+    static final String COLUMN_SENDER_ID = "senderId";
+    static final String COLUMN_CONTENT = "content";
+    static final String COLUMN_SENT_SECONDS = "sentSeconds";
+    static final String COLUMN_SENT_NANOS = "sentNanos";
+
+    // Full-text index over message content; each row's docid is the rowid of its message
+    static final String TABLE_MESSAGES_FTS = "messagesFts";
+    static final String COLUMN_DOC_ID = "docid";
+    static final String COLUMN_MESSAGE_TEXT = "messageText";
+
+    // Contacts table
+    static final String TABLE_CONTACTS = "contacts";
+    static final String COLUMN_FIRST_NAME = "firstName";
+    static final String COLUMN_LAST_NAME = "lastName";
+    static final String COLUMN_PHONE = "phone";
+    static final String COLUMN_EMAIL = "email";
+    static final String COLUMN_IMAGE = "image";
+    static final String COLUMN_AVATAR_VERSION = "avatarVersion";
+
+    // Sync state table, one row per synced collection
+    static final String TABLE_SYNC_STATE = "syncState";
+    static final String COLUMN_NAME = "name";
+    static final String COLUMN_WATERMARK_SECONDS = "watermarkSeconds";
+    static final String COLUMN_WATERMARK_NANOS = "watermarkNanos";
+
+    private static volatile LocalDatabase instance; // Volatile for thread-safe singleton
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     *
+     * @param context The application context.
+     */
+    private LocalDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Provides the Singleton instance of LocalDatabase using double-checked locking for thread safety.
+     *
+     * @param context The context used to open the database.
+     * @return The Singleton instance of LocalDatabase.
+     */
+    public static LocalDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LocalDatabase.class) {
+                if (instance == null) {
+                    instance = new LocalDatabase(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Creates all cache tables and their indexes.
+     *
+     * @param db The database.
+     */
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_MESSAGES + " ("
+                + COLUMN_CHAT_ID + " TEXT NOT NULL, "
+                + COLUMN_ID + " TEXT NOT NULL, "
+                + COLUMN_SENDER_ID + " TEXT NOT NULL, "
+                + COLUMN_CONTENT + " TEXT NOT NULL, "
+                + COLUMN_SENT_SECONDS + " INTEGER NOT NULL, "
+                + COLUMN_SENT_NANOS + " INTEGER NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_CHAT_ID + ", " + COLUMN_ID + "))");
+        db.execSQL("CREATE INDEX index_messages_chat_sent ON " + TABLE_MESSAGES
+                + " (" + COLUMN_CHAT_ID + ", " + COLUMN_SENT_SECONDS + ", " + COLUMN_SENT_NANOS + ")");
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_MESSAGES_FTS + " USING fts4(" + COLUMN_MESSAGE_TEXT + ")");
+
+        db.execSQL("CREATE TABLE " + TABLE_CONTACTS + " ("
+                + COLUMN_ID + " TEXT PRIMARY KEY NOT NULL, "
+                + COLUMN_FIRST_NAME + " TEXT NOT NULL, "
+                + COLUMN_LAST_NAME + " TEXT NOT NULL, "
+                + COLUMN_PHONE + " TEXT NOT NULL, "
+                + COLUMN_EMAIL + " TEXT NOT NULL, "
+                + COLUMN_IMAGE + " TEXT NOT NULL, "
+                + COLUMN_AVATAR_VERSION + " INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX index_contacts_first_name ON " + TABLE_CONTACTS
+                + " (" + COLUMN_FIRST_NAME + ", " + COLUMN_ID + ")");
+
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " ("
+                + COLUMN_NAME + " TEXT PRIMARY KEY NOT NULL, "
+                + COLUMN_WATERMARK_SECONDS + " INTEGER NOT NULL, "
+                + COLUMN_WATERMARK_NANOS + " INTEGER NOT NULL)");
+    }
+
+    /**
+     * Rebuilds the cache tables, since all cached data can be fetched again from Firestore.
+     *
+     * @param db         The database.
+     * @param oldVersion The old schema version.
+     * @param newVersion The new schema version.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CONTACTS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+        onCreate(db);
+    }
+}
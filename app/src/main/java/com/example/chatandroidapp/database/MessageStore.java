@@ -0,0 +1,428 @@
+package com.example.chatandroidapp.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.chatandroidapp.models.Message;
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MessageStore persists chat messages on the device, keyed by chatId and messageId.
+ * It lets MessagingActivity render a conversation from disk on open and fetch only the
+ * messages sent after the newest stored one from Firestore.
+ *
+ * <p>Message content is also kept in a full-text index, updated in the same transaction as the
+ * messages themselves, so every message that reaches the device becomes searchable.</p>
+ *
+ * <p>All methods perform disk I/O and must be called off the main thread,
+ * e.g. on {@link com.example.chatandroidapp.utilities.AppExecutors#diskIO()}.</p>
+ */
+public class MessageStore {
+    /**
+     * Marks the start of a matched term in a search snippet.
+     */
+    public static final char HIGHLIGHT_START = '\u0002';
+
+    /**
+     * Marks the end of a matched term in a search snippet.
+     */
+    public static final char HIGHLIGHT_END = '\u0003';
+
+    private static final Pattern SEARCH_WORD = Pattern.compile("[\\p{L}\\p{Nd}]+");
+    private static final int SNIPPET_TOKENS = 12;
+
+    private static volatile MessageStore instance; // Volatile for thread-safe singleton
+    private final LocalDatabase database;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     *
+     * @param context The context used to open the local database.
+     */
+    private MessageStore(Context context) {
+        database = LocalDatabase.getInstance(context);
+    }
+
+    /**
+     * Provides the Singleton instance of MessageStore using double-checked locking for thread safety.
+     *
+     * @param context The context used to open the local database.
+     * @return The Singleton instance of MessageStore.
+     */
+    public static MessageStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MessageStore.class) {
+                if (instance == null) {
+                    instance = new MessageStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // --- READ METHODS ---
+
+    /**
+     * Loads the newest stored messages of a chat.
+     *
+     * @param chatId The chat ID.
+     * @param limit  The maximum number of messages to load.
+     * @return The messages in chronological order.
+     */
+    @NonNull
+    public List<Entry> loadLatest(String chatId, int limit) {
+        List<Entry> entries = query(
+                LocalDatabase.COLUMN_CHAT_ID + " = ?",
+                new String[]{chatId},
+                descendingOrder(), limit);
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    /**
+     * Loads the stored messages sent immediately before the given timestamp.
+     *
+     * @param chatId The chat ID.
+     * @param cursor The exclusive upper bound of the sent timestamps.
+     * @param limit  The maximum number of messages to load.
+     * @return The messages in chronological order.
+     */
+    @NonNull
+    public List<Entry> loadBefore(String chatId, Timestamp cursor, int limit) {
+        List<Entry> entries = query(
+                LocalDatabase.COLUMN_CHAT_ID + " = ? AND (" + LocalDatabase.COLUMN_SENT_SECONDS + " < ? OR ("
+                        + LocalDatabase.COLUMN_SENT_SECONDS + " = ? AND " + LocalDatabase.COLUMN_SENT_NANOS + " < ?))",
+                new String[]{chatId, seconds(cursor), seconds(cursor), nanos(cursor)},
+                descendingOrder(), limit);
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    /**
+     * Loads the stored messages sent immediately after the given timestamp.
+     *
+     * @param chatId The chat ID.
+     * @param cursor The exclusive lower bound of the sent timestamps.
+     * @param limit  The maximum number of messages to load.
+     * @return The messages in chronological order.
+     */
+    @NonNull
+    public List<Entry> loadAfter(String chatId, Timestamp cursor, int limit) {
+        return query(
+                LocalDatabase.COLUMN_CHAT_ID + " = ? AND (" + LocalDatabase.COLUMN_SENT_SECONDS + " > ? OR ("
+                        + LocalDatabase.COLUMN_SENT_SECONDS + " = ? AND " + LocalDatabase.COLUMN_SENT_NANOS + " > ?))",
+                new String[]{chatId, seconds(cursor), seconds(cursor), nanos(cursor)},
+                ascendingOrder(), limit);
+    }
+
+    /**
+     * Searches the stored messages of a chat by content. Every word of the query must match the start
+     * of a word in the message.
+     *
+     * @param chatId The chat ID.
+     * @param query  The raw search query.
+     * @param limit  The maximum number of results.
+     * @return The matching messages with highlighted snippets, newest first.
+     */
+    @NonNull
+    public List<SearchHit> search(String chatId, String query, int limit) {
+        List<SearchHit> hits = new ArrayList<>();
+        String matchQuery = toMatchQuery(query);
+        if (matchQuery.isEmpty()) {
+            return hits;
+        }
+
+        String sql = "SELECT m.*, snippet(" + LocalDatabase.TABLE_MESSAGES_FTS + ", ?, ?, '…', -1, " + SNIPPET_TOKENS + ") AS snippet"
+                + " FROM " + LocalDatabase.TABLE_MESSAGES_FTS
+                + " JOIN " + LocalDatabase.TABLE_MESSAGES + " m ON m.rowid = " + LocalDatabase.TABLE_MESSAGES_FTS + "." + LocalDatabase.COLUMN_DOC_ID
+                + " WHERE " + LocalDatabase.TABLE_MESSAGES_FTS + " MATCH ? AND m." + LocalDatabase.COLUMN_CHAT_ID + " = ?"
+                + " ORDER BY m." + LocalDatabase.COLUMN_SENT_SECONDS + " DESC, m." + LocalDatabase.COLUMN_SENT_NANOS + " DESC"
+                + " LIMIT " + limit;
+        String[] args = {String.valueOf(HIGHLIGHT_START), String.valueOf(HIGHLIGHT_END), matchQuery, chatId};
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(sql, args)) {
+            int[] columns = columnIndices(cursor);
+            int snippetIndex = cursor.getColumnIndexOrThrow("snippet");
+            while (cursor.moveToNext()) {
+                hits.add(new SearchHit(readEntry(cursor, columns), cursor.getString(snippetIndex)));
+            }
+        }
+        return hits;
+    }
+
+    // --- WRITE METHODS ---
+
+    /**
+     * Inserts or replaces messages in a single transaction.
+     *
+     * @param entries The messages to store.
+     */
+    public void upsert(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Entry entry : entries) {
+                deleteFromIndex(db, entry.message.chatId, entry.message.id);
+
+                ContentValues values = new ContentValues();
+                values.put(LocalDatabase.COLUMN_CHAT_ID, entry.message.chatId);
+                values.put(LocalDatabase.COLUMN_ID, entry.message.id);
+                values.put(LocalDatabase.COLUMN_SENDER_ID, entry.message.senderId);
+                values.put(LocalDatabase.COLUMN_CONTENT, entry.message.content);
+                values.put(LocalDatabase.COLUMN_SENT_SECONDS, entry.sentTimestamp.getSeconds());
+                values.put(LocalDatabase.COLUMN_SENT_NANOS, entry.sentTimestamp.getNanoseconds());
+                long rowId = db.insertWithOnConflict(LocalDatabase.TABLE_MESSAGES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+
+                ContentValues indexValues = new ContentValues();
+                indexValues.put(LocalDatabase.COLUMN_DOC_ID, rowId);
+                indexValues.put(LocalDatabase.COLUMN_MESSAGE_TEXT, entry.message.content);
+                db.insert(LocalDatabase.TABLE_MESSAGES_FTS, null, indexValues);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes a single stored message.
+     *
+     * @param chatId    The chat ID.
+     * @param messageId The message ID.
+     */
+    public void delete(String chatId, String messageId) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            deleteFromIndex(db, chatId, messageId);
+            db.delete(LocalDatabase.TABLE_MESSAGES,
+                    LocalDatabase.COLUMN_CHAT_ID + " = ? AND " + LocalDatabase.COLUMN_ID + " = ?",
+                    new String[]{chatId, messageId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes every stored message of a chat.
+     *
+     * @param chatId The chat ID.
+     */
+    public void deleteChat(String chatId) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM " + LocalDatabase.TABLE_MESSAGES_FTS + " WHERE " + LocalDatabase.COLUMN_DOC_ID
+                            + " IN (SELECT rowid FROM " + LocalDatabase.TABLE_MESSAGES + " WHERE " + LocalDatabase.COLUMN_CHAT_ID + " = ?)",
+                    new Object[]{chatId});
+            db.delete(LocalDatabase.TABLE_MESSAGES,
+                    LocalDatabase.COLUMN_CHAT_ID + " = ?",
+                    new String[]{chatId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes every stored message and its full-text index entries, e.g. when the user signs out,
+     * so the next user of the device never sees or searches them.
+     */
+    public void deleteAll() {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(LocalDatabase.TABLE_MESSAGES_FTS, null, null);
+            db.delete(LocalDatabase.TABLE_MESSAGES, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // --- HELPERS ---
+
+    /**
+     * Runs a query on the messages table and maps each row to an Entry.
+     *
+     * @param selection     The WHERE clause.
+     * @param selectionArgs The WHERE clause arguments.
+     * @param orderBy       The ORDER BY clause.
+     * @param limit         The maximum number of rows.
+     * @return The matching entries in the requested order.
+     */
+    private List<Entry> query(String selection, String[] selectionArgs, String orderBy, int limit) {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().query(
+                LocalDatabase.TABLE_MESSAGES, null, selection, selectionArgs,
+                null, null, orderBy, String.valueOf(limit))) {
+            int[] columns = columnIndices(cursor);
+            while (cursor.moveToNext()) {
+                entries.add(readEntry(cursor, columns));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Looks up the indices of the message columns in a cursor, in the order readEntry expects them.
+     *
+     * @param cursor The cursor over message rows.
+     * @return The column indices.
+     */
+    private static int[] columnIndices(Cursor cursor) {
+        return new int[]{
+                cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_CHAT_ID),
+                cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_ID),
+                cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_SENDER_ID),
+                cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_CONTENT),
+                cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_SENT_SECONDS),
+                cursor.getColumnIndexOrThrow(LocalDatabase.COLUMN_SENT_NANOS)};
+    }
+
+    /**
+     * Maps the current row of a cursor to an Entry.
+     *
+     * @param cursor  The cursor positioned on a message row.
+     * @param columns The column indices from columnIndices.
+     * @return The entry.
+     */
+    private static Entry readEntry(Cursor cursor, int[] columns) {
+        Timestamp sentTimestamp = new Timestamp(cursor.getLong(columns[4]), cursor.getInt(columns[5]));
+        Message message = new Message(
+                cursor.getString(columns[1]),
+                cursor.getString(columns[0]),
+                cursor.getString(columns[2]),
+                cursor.getString(columns[3]),
+                sentTimestamp.toDate());
+        return new Entry(message, sentTimestamp);
+    }
+
+    /**
+     * Removes a stored message from the full-text index, if it is stored.
+     *
+     * @param db        The writable database, inside a transaction.
+     * @param chatId    The chat ID.
+     * @param messageId The message ID.
+     */
+    private static void deleteFromIndex(SQLiteDatabase db, String chatId, String messageId) {
+        db.execSQL("DELETE FROM " + LocalDatabase.TABLE_MESSAGES_FTS + " WHERE " + LocalDatabase.COLUMN_DOC_ID
+                        + " IN (SELECT rowid FROM " + LocalDatabase.TABLE_MESSAGES
+                        + " WHERE " + LocalDatabase.COLUMN_CHAT_ID + " = ? AND " + LocalDatabase.COLUMN_ID + " = ?)",
+                new Object[]{chatId, messageId});
+    }
+
+    /**
+     * Turns a raw query into a full-text MATCH expression of prefix terms, dropping all operator syntax.
+     *
+     * @param query The raw query.
+     * @return The MATCH expression, or an empty string if the query has no words.
+     */
+    private static String toMatchQuery(String query) {
+        StringBuilder matchQuery = new StringBuilder();
+        Matcher matcher = SEARCH_WORD.matcher(query.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            if (matchQuery.length() > 0) {
+                matchQuery.append(' ');
+            }
+            matchQuery.append(matcher.group()).append('*');
+        }
+        return matchQuery.toString();
+    }
+
+    private static String descendingOrder() {
+        return LocalDatabase.COLUMN_SENT_SECONDS + " DESC, " + LocalDatabase.COLUMN_SENT_NANOS + " DESC";
+    }
+
+    private static String ascendingOrder() {
+        return LocalDatabase.COLUMN_SENT_SECONDS + " ASC, " + LocalDatabase.COLUMN_SENT_NANOS + " ASC";
+    }
+
+    private static String seconds(Timestamp timestamp) {
+        return String.valueOf(timestamp.getSeconds());
+    }
+
+    private static String nanos(Timestamp timestamp) {
+        return String.valueOf(timestamp.getNanoseconds());
+    }
+
+    /**
+     * A message found by search, with a snippet of its content around the matches.
+     */
+    public static class SearchHit {
+        /**
+         * The matching message and its exact server timestamp.
+         */
+        public final Entry entry;
+
+        /**
+         * Excerpt of the content with each match wrapped in HIGHLIGHT_START and HIGHLIGHT_END.
+         */
+        public final String snippet;
+
+        /**
+         * Constructs a new SearchHit.
+         *
+         * @param entry   The matching message.
+         * @param snippet The highlighted excerpt.
+         */
+        public SearchHit(@NonNull Entry entry, @NonNull String snippet) {
+            this.entry = entry;
+            this.snippet = snippet;
+        }
+    }
+
+    /**
+     * A stored message together with its exact server timestamp, which is kept at full
+     * precision so it can be used as a Firestore query cursor.
+     */
+    public static class Entry {
+        /**
+         * The stored message.
+         */
+        public final Message message;
+
+        /**
+         * The exact server timestamp of the message.
+         */
+        public final Timestamp sentTimestamp;
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param message       The message.
+         * @param sentTimestamp The exact server timestamp of the message.
+         */
+        public Entry(@NonNull Message message, @NonNull Timestamp sentTimestamp) {
+            this.message = message;
+            this.sentTimestamp = sentTimestamp;
+        }
+
+        /**
+         * Creates an Entry from a message and its timestamp, if the message has been confirmed by the server.
+         *
+         * @param message       The message.
+         * @param sentTimestamp The server timestamp, or null if the write is still pending.
+         * @return The entry, or null if the message has no server timestamp yet.
+         */
+        @Nullable
+        public static Entry of(@Nullable Message message, @Nullable Timestamp sentTimestamp) {
+            return message == null || sentTimestamp == null ? null : new Entry(message, sentTimestamp);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.chatandroidapp.database;
+
+import androidx.annotation.NonNull;
+
+import com.example.chatandroidapp.utilities.AppExecutors;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * PagedBatchWriter walks the documents of a query page by page and writes each page in a single WriteBatch,
+ * so a background job over many documents costs one commit per page instead of one write per document.
+ * Pages are requested one after another with a cursor on the last document of the previous page.
+ *
+ * <p>Results are handled on {@link AppExecutors#diskIO()}, so the document writer may do blocking work.</p>
+ */
+public class PagedBatchWriter {
+    /**
+     * Most writes Firestore accepts in one batch.
+     */
+    public static final int MAX_BATCH_WRITES = 500;
+
+    /**
+     * Adds the writes of one document to the batch of its page.
+     */
+    public interface DocumentWriter {
+        /**
+         * Adds the writes of a document to a batch, or none if the document needs no change.
+         * Runs on the disk I/O executor.
+         *
+         * @param batch    The batch of the document's page.
+         * @param document The document.
+         * @return The number of writes added.
+         */
+        int write(@NonNull WriteBatch batch, @NonNull DocumentSnapshot document);
+    }
+
+    /**
+     * Callback for the end of a run, invoked on the disk I/O executor.
+     */
+    public interface OnFinishedListener {
+        /**
+         * Called once every page has been written.
+         *
+         * @param writeCount The number of writes committed.
+         */
+        void onFinished(int writeCount);
+
+        /**
+         * Called when a page could not be read or written. Pages committed before it stay written.
+         *
+         * @param e The cause of the failure.
+         */
+        void onFailure(@NonNull Exception e);
+    }
+
+    private final Query firstPage;
+    private final int pageSize;
+    private final DocumentWriter writer;
+    private final OnFinishedListener listener;
+    private final Executor executor = AppExecutors.getInstance().diskIO();
+
+    /**
+     * Private constructor; use run().
+     */
+    private PagedBatchWriter(Query query, int pageSize, DocumentWriter writer, OnFinishedListener listener) {
+        this.firstPage = query.limit(pageSize);
+        this.pageSize = pageSize;
+        this.writer = writer;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts writing the documents of a query. The page size times the most writes the writer adds
+     * for one document must not exceed MAX_BATCH_WRITES.
+     *
+     * @param query    The ordered query of the documents to visit.
+     * @param pageSize The number of documents read per page.
+     * @param writer   The writer adding the writes of each document.
+     * @param listener The listener notified once the run ends.
+     */
+    public static void run(@NonNull Query query, int pageSize, @NonNull DocumentWriter writer, @NonNull OnFinishedListener listener) {
+        PagedBatchWriter pagedBatchWriter = new PagedBatchWriter(query, pageSize, writer, listener);
+        pagedBatchWriter.writePage(pagedBatchWriter.firstPage, 0);
+    }
+
+    /**
+     * Writes one page, then moves on to the next one.
+     *
+     * @param page       The query of the page to write.
+     * @param writeCount The number of writes committed so far.
+     */
+    private void writePage(Query page, int writeCount) {
+        page.get().addOnSuccessListener(executor, snapshots -> {
+            WriteBatch batch = page.getFirestore().batch();
+            int batchCount = 0;
+            for (DocumentSnapshot document : snapshots.getDocuments()) {
+                batchCount += writer.write(batch, document);
+            }
+
+            final int totalCount = writeCount + batchCount;
+            if (batchCount == 0) {
+                continueOrFinish(snapshots, totalCount);
+                return;
+            }
+            batch.commit()
+                    .addOnSuccessListener(executor, unused -> continueOrFinish(snapshots, totalCount))
+                    .addOnFailureListener(executor, listener::onFailure);
+        }).addOnFailureListener(executor, listener::onFailure);
+    }
+
+    /**
+     * Requests the page after the given one, or reports the end of the run if it was the last page.
+     *
+     * @param snapshots  The page just written.
+     * @param writeCount The number of writes committed so far.
+     */
+    private void continueOrFinish(QuerySnapshot snapshots, int writeCount) {
+        List<DocumentSnapshot> documents = snapshots.getDocuments();
+        if (documents.size() == pageSize) {
+            writePage(firstPage.startAfter(documents.get(documents.size() - 1)), writeCount);
+        } else {
+            listener.onFinished(writeCount);
+        }
+    }
+}
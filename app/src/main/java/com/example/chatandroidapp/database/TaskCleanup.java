@@ -0,0 +1,108 @@
+package com.example.chatandroidapp.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.chatandroidapp.models.Task;
+import com.example.chatandroidapp.utilities.Constants;
+import com.example.chatandroidapp.utilities.PreferenceManager;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+/**
+ * TaskCleanup deletes the current user's outdated completed tasks in the background, at most once per interval
+ * and user. Old tasks are visited by creation date through a PagedBatchWriter, which deletes the completed ones
+ * of each page in a single WriteBatch. The UI only sees the deletions through its task listener.
+ * Only one cleanup runs at a time.
+ */
+public class TaskCleanup {
+    private static final String TAG = "TASK_CLEANUP";
+
+    /**
+     * Minimum time between two cleanups of the same user.
+     */
+    private static final long CLEANUP_INTERVAL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static volatile TaskCleanup instance; // Volatile for thread-safe singleton
+    private final FirebaseFirestore firestore;
+    private final PreferenceManager preferenceManager;
+    private boolean isRunning = false;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     *
+     * @param context The context used to read the preferences.
+     */
+    private TaskCleanup(Context context) {
+        firestore = FirebaseFirestore.getInstance();
+        preferenceManager = PreferenceManager.getInstance(context);
+    }
+
+    /**
+     * Provides the Singleton instance of TaskCleanup using double-checked locking for thread safety.
+     *
+     * @param context The context used to read the preferences.
+     * @return The Singleton instance of TaskCleanup.
+     */
+    public static TaskCleanup getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TaskCleanup.class) {
+                if (instance == null) {
+                    instance = new TaskCleanup(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a cleanup of the current user's tasks unless one ran for that user within the cleanup interval
+     * or is running.
+     */
+    public synchronized void runIfDue() {
+        String userId = preferenceManager.getString(Constants.KEY_ID, "");
+        String lastCleanupKey = Constants.KEY_LAST_TASK_CLEANUP + "_" + userId;
+        long lastCleanup = preferenceManager.getLong(lastCleanupKey, 0L);
+        if (isRunning || userId.isEmpty() || System.currentTimeMillis() - lastCleanup < CLEANUP_INTERVAL_MILLIS) {
+            return;
+        }
+
+        isRunning = true;
+        Query outdatedTasks = firestore.collection(Constants.KEY_COLLECTION_USERS)
+                .document(userId)
+                .collection(Constants.KEY_COLLECTION_TASKS)
+                .whereLessThanOrEqualTo(Constants.KEY_CREATED_DATE, Task.getOutdatedCutoff())
+                .orderBy(Constants.KEY_CREATED_DATE);
+
+        // The query filters on the creation date only, so it needs no composite index; completion is checked here
+        PagedBatchWriter.run(outdatedTasks, PagedBatchWriter.MAX_BATCH_WRITES, (batch, document) -> {
+            if (!Boolean.TRUE.equals(document.getBoolean(Constants.KEY_IS_COMPLETED))) {
+                return 0;
+            }
+            batch.delete(document.getReference());
+            return 1;
+        }, new PagedBatchWriter.OnFinishedListener() {
+            @Override
+            public void onFinished(int writeCount) {
+                preferenceManager.putLong(lastCleanupKey, System.currentTimeMillis());
+                Log.d(TAG, "Deleted " + writeCount + " outdated tasks.");
+                finish();
+            }
+
+            @Override
+            public void onFailure(@NonNull Exception e) {
+                Log.e(TAG, "Failed to delete outdated tasks.", e); // Retried the next time a cleanup is due
+                finish();
+            }
+        });
+    }
+
+    /**
+     * Allows the next cleanup to start.
+     */
+    private synchronized void finish() {
+        isRunning = false;
+    }
+}
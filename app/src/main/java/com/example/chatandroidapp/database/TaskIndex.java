@@ -0,0 +1,280 @@
+package com.example.chatandroidapp.database;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.chatandroidapp.models.Task;
+import com.example.chatandroidapp.utilities.Utilities;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * TaskIndex keeps the tasks of the current user bucketed by their completion date, so the tasks of a day
+ * and the per-day task counts of a month are found with a logarithmic lookup instead of a scan of every task.
+ * Pending tasks are bucketed separately, so the pending list never has to skip completed tasks.
+ *
+ * <p>Days are keyed by integers of the form yyyyMMdd, which sort chronologically; tasks whose date cannot
+ * be parsed share a bucket after every real day. Tasks are filed by their typed dueAt, falling back to
+ * parsing completionDate for tasks not migrated yet, and ordered within a day by dueAt.
+ * The index is updated incrementally through put and remove, and must only be used from the main thread.</p>
+ */
+public class TaskIndex {
+    /**
+     * Key of the bucket holding tasks without a valid completion date.
+     */
+    public static final int UNDATED = Integer.MAX_VALUE;
+
+    private static final Comparator<Task> TIME_ORDER = (first, second) -> {
+        int byTime = Long.compare(dueMillisOf(first), dueMillisOf(second));
+        return byTime != 0 ? byTime : first.id.compareTo(second.id);
+    };
+
+    private final Map<String, Task> tasksById = new HashMap<>();
+    private final Map<String, Integer> dayKeysById = new HashMap<>(); // Bucket each task was filed under
+    private final TreeMap<Integer, List<Task>> tasksByDay = new TreeMap<>();
+    private final TreeMap<Integer, List<Task>> pendingTasksByDay = new TreeMap<>();
+
+    // --- READ METHODS ---
+
+    /**
+     * Returns an indexed task.
+     *
+     * @param taskId The ID of the task.
+     * @return The task, or null if it is not indexed.
+     */
+    @Nullable
+    public Task get(String taskId) {
+        return tasksById.get(taskId);
+    }
+
+    /**
+     * Returns the tasks due on a day.
+     *
+     * @param dayKey The yyyyMMdd key of the day.
+     * @return A new list of the tasks, ordered by completion time.
+     */
+    @NonNull
+    public List<Task> getTasksOn(int dayKey) {
+        List<Task> tasks = tasksByDay.get(dayKey);
+        return tasks != null ? new ArrayList<>(tasks) : new ArrayList<>();
+    }
+
+    /**
+     * Returns the number of tasks due on each day of a range that has any, e.g. to decorate a calendar month.
+     * Only the buckets of the range are visited.
+     *
+     * @param fromDayKey The yyyyMMdd key of the first day, inclusive.
+     * @param toDayKey   The yyyyMMdd key of the last day, exclusive.
+     * @return The task count per yyyyMMdd day key, in chronological order.
+     */
+    @NonNull
+    public TreeMap<Integer, Integer> getTaskCounts(int fromDayKey, int toDayKey) {
+        TreeMap<Integer, Integer> counts = new TreeMap<>();
+        for (Map.Entry<Integer, List<Task>> day : tasksByDay.subMap(fromDayKey, true, toDayKey, false).entrySet()) {
+            counts.put(day.getKey(), day.getValue().size());
+        }
+        return counts;
+    }
+
+    /**
+     * Returns every task not completed yet.
+     *
+     * @return A new list of the pending tasks, ordered by completion date and time, undated tasks last.
+     */
+    @NonNull
+    public List<Task> getPendingTasks() {
+        return flatten(pendingTasksByDay.values());
+    }
+
+    // --- WRITE METHODS ---
+
+    /**
+     * Adds a task, or re-files it if a task with the same ID is indexed, e.g. after it was edited or completed.
+     *
+     * @param task The task.
+     */
+    public void put(@NonNull Task task) {
+        remove(task.id);
+        int dayKey = dayKeyOf(task);
+        tasksById.put(task.id, task);
+        dayKeysById.put(task.id, dayKey);
+        insert(tasksByDay, dayKey, task);
+        if (!task.isCompleted) {
+            insert(pendingTasksByDay, dayKey, task);
+        }
+    }
+
+    /**
+     * Removes a task.
+     *
+     * @param taskId The ID of the task.
+     * @return The removed task, or null if it was not indexed.
+     */
+    @Nullable
+    public Task remove(String taskId) {
+        Task task = tasksById.remove(taskId);
+        Integer dayKey = dayKeysById.remove(taskId);
+        if (task != null && dayKey != null) {
+            delete(tasksByDay, dayKey, taskId);
+            delete(pendingTasksByDay, dayKey, taskId);
+        }
+        return task;
+    }
+
+    /**
+     * Removes every task.
+     */
+    public void clear() {
+        tasksById.clear();
+        dayKeysById.clear();
+        tasksByDay.clear();
+        pendingTasksByDay.clear();
+    }
+
+    // --- DAY KEYS ---
+
+    /**
+     * Returns the key of a calendar day.
+     *
+     * @param year       The year.
+     * @param month      The month, 0-based as in Calendar.
+     * @param dayOfMonth The day of the month.
+     * @return The yyyyMMdd key.
+     */
+    public static int dayKey(int year, int month, int dayOfMonth) {
+        return year * 10000 + (month + 1) * 100 + dayOfMonth;
+    }
+
+    /**
+     * Returns the key of the first day of the month a day is in.
+     *
+     * @param dayKey The yyyyMMdd key of the day.
+     * @return The yyyyMM01 key.
+     */
+    public static int monthKeyOf(int dayKey) {
+        return dayKey / 100 * 100 + 1;
+    }
+
+    /**
+     * Returns the key of the first day of the month after a day's month, rolling December over into January.
+     *
+     * @param dayKey The yyyyMMdd key of the day.
+     * @return The yyyyMM01 key of the next month.
+     */
+    public static int nextMonthKeyOf(int dayKey) {
+        int monthKey = monthKeyOf(dayKey);
+        return monthKey / 100 % 100 == 12 ? (monthKey / 10000 + 1) * 10000 + 101 : monthKey + 100;
+    }
+
+    /**
+     * Returns the key of the day a task is due on.
+     *
+     * @param task The task.
+     * @return The yyyyMMdd key, or UNDATED if the task has no valid due date.
+     */
+    public static int dayKeyOf(@NonNull Task task) {
+        if (task.dueAt == null) {
+            return dayKeyOf(task.completionDate);
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(task.dueAt);
+        return dayKey(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Returns the first moment of a day in the device's time zone, e.g. to bound a dueAt range query.
+     *
+     * @param dayKey The yyyyMMdd key.
+     * @return The start of the day.
+     */
+    @NonNull
+    public static Date startOfDay(int dayKey) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(dayKey / 10000, dayKey / 100 % 100 - 1, dayKey % 100);
+        return calendar.getTime();
+    }
+
+    /**
+     * Parses a completion date of the form yyyy-MM-dd into its day key, without allocating a date formatter.
+     *
+     * @param completionDate The completion date.
+     * @return The yyyyMMdd key, or UNDATED if the date is missing or malformed.
+     */
+    public static int dayKeyOf(@Nullable String completionDate) {
+        if (completionDate == null || completionDate.length() != 10
+                || completionDate.charAt(4) != '-' || completionDate.charAt(7) != '-') {
+            return UNDATED;
+        }
+        int year = Utilities.parseDigits(completionDate, 0, 4);
+        int month = Utilities.parseDigits(completionDate, 5, 7);
+        int day = Utilities.parseDigits(completionDate, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return UNDATED;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Formats a day key as yyyy-MM-dd, the format completion dates are stored in.
+     *
+     * @param dayKey The yyyyMMdd key.
+     * @return The formatted date.
+     */
+    @NonNull
+    public static String formatDayKey(int dayKey) {
+        return String.format(Locale.ROOT, "%04d-%02d-%02d", dayKey / 10000, dayKey / 100 % 100, dayKey % 100);
+    }
+
+    // --- HELPERS ---
+
+    private static long dueMillisOf(Task task) {
+        return task.dueAt != null ? task.dueAt.getTime() : Long.MAX_VALUE;
+    }
+
+    private static void insert(TreeMap<Integer, List<Task>> buckets, int dayKey, Task task) {
+        List<Task> bucket = buckets.get(dayKey);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            buckets.put(dayKey, bucket);
+        }
+        int position = 0;
+        while (position < bucket.size() && TIME_ORDER.compare(bucket.get(position), task) < 0) {
+            position++; // Buckets hold the tasks of a single day, so a linear insert is cheap
+        }
+        bucket.add(position, task);
+    }
+
+    private static void delete(TreeMap<Integer, List<Task>> buckets, int dayKey, String taskId) {
+        List<Task> bucket = buckets.get(dayKey);
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i).id.equals(taskId)) {
+                bucket.remove(i);
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            buckets.remove(dayKey);
+        }
+    }
+
+    private static List<Task> flatten(Collection<List<Task>> buckets) {
+        List<Task> tasks = new ArrayList<>();
+        for (List<Task> bucket : buckets) {
+            tasks.addAll(bucket);
+        }
+        return tasks;
+    }
+}
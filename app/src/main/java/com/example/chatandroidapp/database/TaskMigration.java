@@ -0,0 +1,106 @@
+package com.example.chatandroidapp.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.chatandroidapp.models.Task;
+import com.example.chatandroidapp.utilities.Constants;
+import com.example.chatandroidapp.utilities.PreferenceManager;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.Date;
+
+/**
+ * TaskMigration fills in the typed dueAt of the current user's tasks created before it existed,
+ * deriving it from their completionDate and completionTime strings. Tasks are visited through a
+ * PagedBatchWriter, which updates the ones missing dueAt in one WriteBatch per page. Once every page is done,
+ * the migration is recorded for the user, so it runs once per user and device.
+ *
+ * <p>Until a task is migrated, it only appears in queries that do not filter on dueAt, e.g. the pending tasks.</p>
+ */
+public class TaskMigration {
+    private static final String TAG = "TASK_MIGRATION";
+
+    private static volatile TaskMigration instance; // Volatile for thread-safe singleton
+    private final FirebaseFirestore firestore;
+    private final PreferenceManager preferenceManager;
+    private boolean isRunning = false;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     *
+     * @param context The context used to read the preferences.
+     */
+    private TaskMigration(Context context) {
+        firestore = FirebaseFirestore.getInstance();
+        preferenceManager = PreferenceManager.getInstance(context);
+    }
+
+    /**
+     * Provides the Singleton instance of TaskMigration using double-checked locking for thread safety.
+     *
+     * @param context The context used to read the preferences.
+     * @return The Singleton instance of TaskMigration.
+     */
+    public static TaskMigration getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TaskMigration.class) {
+                if (instance == null) {
+                    instance = new TaskMigration(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Starts migrating the current user's tasks unless that already finished or is running.
+     */
+    public synchronized void migrateIfNeeded() {
+        String userId = preferenceManager.getString(Constants.KEY_ID, "");
+        if (isRunning || userId.isEmpty() || userId.equals(preferenceManager.getString(Constants.KEY_DUE_AT_MIGRATED_USER, ""))) {
+            return;
+        }
+
+        isRunning = true;
+        Query tasks = firestore.collection(Constants.KEY_COLLECTION_USERS)
+                .document(userId)
+                .collection(Constants.KEY_COLLECTION_TASKS)
+                .orderBy(FieldPath.documentId());
+
+        PagedBatchWriter.run(tasks, PagedBatchWriter.MAX_BATCH_WRITES, (batch, document) -> {
+            if (document.contains(Constants.KEY_DUE_AT)) {
+                return 0;
+            }
+            Date dueAt = Task.toDueAt(document.getString("completionDate"), document.getString("completionTime"));
+            if (dueAt == null) {
+                return 0;
+            }
+            batch.update(document.getReference(), Constants.KEY_DUE_AT, dueAt);
+            return 1;
+        }, new PagedBatchWriter.OnFinishedListener() {
+            @Override
+            public void onFinished(int writeCount) {
+                preferenceManager.putString(Constants.KEY_DUE_AT_MIGRATED_USER, userId);
+                finish();
+            }
+
+            @Override
+            public void onFailure(@NonNull Exception e) {
+                Log.e(TAG, "Failed to migrate task due dates.", e); // Retried the next time the tasks are shown
+                finish();
+            }
+        });
+    }
+
+    /**
+     * Allows the migration to be started again.
+     */
+    private synchronized void finish() {
+        isRunning = false;
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.chatandroidapp.database;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.Constants;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * UserDirectory is an app-wide cache of User documents shared by all adapters and activities.
+ * Entries are kept in a size-bounded LRU and refreshed from Firestore once they are older than a TTL.
+ * Concurrent requests for the same user are coalesced, so any number of rows showing one sender
+ * cost a single Firestore read. Whole participant lists are loaded in parallel chunks of whereIn queries.
+ *
+ * <p>All methods must be called on the main thread; Firestore delivers its callbacks there as well.</p>
+ */
+public class UserDirectory {
+    private static final String TAG = "USER_DIRECTORY";
+
+    /**
+     * Maximum number of users kept in memory.
+     */
+    private static final int MAX_ENTRIES = 200;
+
+    /**
+     * Age after which a cached user is fetched again from Firestore.
+     */
+    private static final long TTL_MILLIS = 10 * 60 * 1000L;
+
+    /**
+     * Maximum number of values Firestore accepts in a single whereIn filter.
+     */
+    private static final int WHERE_IN_LIMIT = 30;
+
+    private static volatile UserDirectory instance; // Volatile for thread-safe singleton
+
+    private final FirebaseFirestore firestore;
+    private final LruCache<String, CachedUser> cache = new LruCache<>(MAX_ENTRIES);
+    private final Map<String, List<ResultCallback>> pendingRequests = new HashMap<>();
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Callback invoked once a requested user is available.
+     */
+    public interface OnUserLoadedListener {
+        /**
+         * Called with the requested user, or with a placeholder User holding only the ID
+         * if the user does not exist or could not be loaded.
+         *
+         * @param user The loaded user.
+         */
+        void onUserLoaded(@NonNull User user);
+    }
+
+    /**
+     * Callback invoked once every user of a list has been looked up.
+     */
+    public interface OnUsersLoadedListener {
+        /**
+         * Called with the users that exist, keyed by ID, and the IDs that match no user.
+         *
+         * @param users          The loaded users, keyed by ID.
+         * @param missingUserIds The IDs for which no user document exists.
+         */
+        void onUsersLoaded(@NonNull Map<String, User> users, @NonNull Set<String> missingUserIds);
+
+        /**
+         * Called instead of onUsersLoaded if any lookup failed, so no user is mistaken for a missing one.
+         *
+         * @param e The cause of the failure.
+         */
+        void onFailure(@NonNull Exception e);
+    }
+
+    /**
+     * Internal callback of a single lookup. A null user without an error means the user does not exist.
+     */
+    private interface ResultCallback {
+        void onResult(@Nullable User user, @Nullable Exception error);
+    }
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     */
+    private UserDirectory() {
+        firestore = FirebaseFirestore.getInstance();
+    }
+
+    /**
+     * Provides the Singleton instance of UserDirectory using double-checked locking for thread safety.
+     *
+     * @return The Singleton instance of UserDirectory.
+     */
+    public static UserDirectory getInstance() {
+        if (instance == null) {
+            synchronized (UserDirectory.class) {
+                if (instance == null) {
+                    instance = new UserDirectory();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // --- READ METHODS ---
+
+    /**
+     * Delivers the user with the given ID, from memory when the cached copy is still fresh and from
+     * Firestore otherwise. If a read for the same user is already in flight, the listener joins it.
+     *
+     * @param userId   The ID of the user.
+     * @param listener The listener to notify with the user.
+     */
+    public void getUser(@NonNull String userId, @NonNull OnUserLoadedListener listener) {
+        CachedUser cached = cache.get(userId);
+        if (cached != null && !cached.isExpired()) {
+            hitCount++;
+            listener.onUserLoaded(cached.user);
+            return;
+        }
+        missCount++;
+
+        ResultCallback callback = (user, error) -> listener.onUserLoaded(user != null ? user : new User(userId));
+        if (!joinPendingRequest(userId, callback)) {
+            fetchUser(userId);
+        }
+    }
+
+    /**
+     * Delivers all users of a list at once, e.g. the participants of a chat. Fresh cached users are used as they are,
+     * users already being read are awaited, and the rest are queried in parallel chunks of whereIn filters.
+     *
+     * @param userIds  The IDs of the users.
+     * @param listener The listener to notify once every user has been looked up.
+     */
+    public void loadUsers(@NonNull Collection<String> userIds, @NonNull OnUsersLoadedListener listener) {
+        BatchRequest batch = new BatchRequest(listener);
+        List<String> idsToQuery = new ArrayList<>();
+
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            CachedUser cached = cache.get(userId);
+            if (cached != null && !cached.isExpired()) {
+                hitCount++;
+                batch.add(userId, cached.exists ? cached.user : null);
+                continue;
+            }
+            missCount++;
+
+            batch.outstanding++;
+            if (!joinPendingRequest(userId, (user, error) -> batch.onResult(userId, user, error))) {
+                idsToQuery.add(userId);
+            }
+        }
+
+        for (int start = 0; start < idsToQuery.size(); start += WHERE_IN_LIMIT) {
+            int end = Math.min(start + WHERE_IN_LIMIT, idsToQuery.size());
+            fetchUsers(new ArrayList<>(idsToQuery.subList(start, end)));
+        }
+        batch.seal();
+    }
+
+    /**
+     * Returns the cached user with the given ID without reading Firestore, even if the entry is stale.
+     *
+     * @param userId The ID of the user.
+     * @return The cached user, or null if the user is not in memory.
+     */
+    @Nullable
+    public User peekUser(@NonNull String userId) {
+        CachedUser cached = cache.get(userId);
+        return cached != null ? cached.user : null;
+    }
+
+    /**
+     * Returns the number of requests served from memory.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of requests that needed a Firestore read, including those joined to a read in flight.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    // --- WRITE METHODS ---
+
+    /**
+     * Stores a user that was loaded elsewhere, e.g. by a query, so later lookups need no extra read.
+     *
+     * @param user The user to store.
+     */
+    public void putUser(@NonNull User user) {
+        if (user.id != null && !user.id.isEmpty()) {
+            cache.put(user.id, new CachedUser(user, true));
+        }
+    }
+
+    /**
+     * Drops the cached copy of a user, e.g. after their profile was changed on this device.
+     *
+     * @param userId The ID of the user.
+     */
+    public void invalidate(@NonNull String userId) {
+        cache.remove(userId);
+    }
+
+    // --- HELPER METHODS ---
+
+    /**
+     * Registers a callback for a user. If a read for the user is already in flight, the callback joins it;
+     * otherwise a new pending request is opened and the caller is responsible for reading the user.
+     *
+     * @param userId   The ID of the user.
+     * @param callback The callback to notify with the result.
+     * @return True if the callback joined a read in flight.
+     */
+    private boolean joinPendingRequest(String userId, ResultCallback callback) {
+        List<ResultCallback> callbacks = pendingRequests.get(userId);
+        boolean isInFlight = callbacks != null;
+        if (!isInFlight) {
+            callbacks = new ArrayList<>();
+            pendingRequests.put(userId, callbacks);
+        }
+        callbacks.add(callback);
+        return isInFlight;
+    }
+
+    /**
+     * Reads a user from Firestore and notifies every callback waiting for it.
+     *
+     * @param userId The ID of the user.
+     */
+    private void fetchUser(String userId) {
+        firestore.collection(Constants.KEY_COLLECTION_USERS)
+                .document(userId)
+                .get()
+                .addOnSuccessListener(documentSnapshot -> {
+                    User user = documentSnapshot.exists() ? documentSnapshot.toObject(User.class) : null;
+                    storeResult(userId, user);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to fetch user data for userId: " + userId, e);
+                    notifyCallbacks(userId, peekUser(userId), e);
+                });
+    }
+
+    /**
+     * Reads up to WHERE_IN_LIMIT users from Firestore with one whereIn query and notifies every callback waiting for them.
+     *
+     * @param userIds The IDs of the users.
+     */
+    private void fetchUsers(List<String> userIds) {
+        firestore.collection(Constants.KEY_COLLECTION_USERS)
+                .whereIn("id", userIds)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    Set<String> missingUserIds = new HashSet<>(userIds);
+                    for (DocumentSnapshot document : querySnapshot.getDocuments()) {
+                        User user = document.toObject(User.class);
+                        if (user != null && missingUserIds.remove(user.id)) {
+                            storeResult(user.id, user);
+                        }
+                    }
+                    for (String userId : missingUserIds) {
+                        storeResult(userId, null);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to fetch user data for " + userIds.size() + " users", e);
+                    for (String userId : userIds) {
+                        notifyCallbacks(userId, peekUser(userId), e);
+                    }
+                });
+    }
+
+    /**
+     * Caches the result of a read and notifies every callback waiting for it.
+     * A user that does not exist is cached as a placeholder holding only the ID.
+     *
+     * @param userId The ID of the user.
+     * @param user   The user read from Firestore, or null if it does not exist.
+     */
+    private void storeResult(String userId, @Nullable User user) {
+        cache.put(userId, new CachedUser(user != null ? user : new User(userId), user != null));
+        notifyCallbacks(userId, user, null);
+    }
+
+    /**
+     * Notifies and clears the callbacks waiting for a user.
+     * On failure, a stale cached copy is delivered along with the error if there is one.
+     *
+     * @param userId The ID of the user.
+     * @param user   The user to deliver, or null if it does not exist or is unavailable.
+     * @param error  The cause of a failed read, or null on success.
+     */
+    private void notifyCallbacks(String userId, @Nullable User user, @Nullable Exception error) {
+        List<ResultCallback> callbacks = pendingRequests.remove(userId);
+        if (callbacks == null) {
+            return;
+        }
+        for (ResultCallback callback : callbacks) {
+            callback.onResult(user, error);
+        }
+    }
+
+    /**
+     * Collects the results of a loadUsers call and reports them once every lookup has finished.
+     */
+    private static class BatchRequest {
+        final OnUsersLoadedListener listener;
+        final Map<String, User> users = new HashMap<>();
+        final Set<String> missingUserIds = new HashSet<>();
+        int outstanding;
+        boolean isSealed;
+        Exception error;
+
+        BatchRequest(OnUsersLoadedListener listener) {
+            this.listener = listener;
+        }
+
+        void add(String userId, @Nullable User user) {
+            if (user != null) {
+                users.put(userId, user);
+            } else {
+                missingUserIds.add(userId);
+            }
+        }
+
+        void onResult(String userId, @Nullable User user, @Nullable Exception e) {
+            if (e != null) {
+                error = e;
+            } else {
+                add(userId, user);
+            }
+            outstanding--;
+            finishIfDone();
+        }
+
+        /**
+         * Marks that no more lookups will be added, reporting at once if all of them have finished.
+         */
+        void seal() {
+            isSealed = true;
+            finishIfDone();
+        }
+
+        private void finishIfDone() {
+            if (!isSealed || outstanding > 0) {
+                return;
+            }
+            if (error != null) {
+                listener.onFailure(error);
+            } else {
+                listener.onUsersLoaded(users, missingUserIds);
+            }
+        }
+    }
+
+    /**
+     * A cached user together with whether it exists and the time it was stored.
+     */
+    private static class CachedUser {
+        final User user;
+        final boolean exists;
+        final long storedAtMillis;
+
+        CachedUser(User user, boolean exists) {
+            this.user = user;
+            this.exists = exists;
+            this.storedAtMillis = SystemClock.elapsedRealtime();
+        }
+
+        boolean isExpired() {
+            return SystemClock.elapsedRealtime() - storedAtMillis > TTL_MILLIS;
+        }
+    }
+}
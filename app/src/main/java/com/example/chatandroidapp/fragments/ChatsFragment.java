@@ -2,6 +2,10 @@ package com.example.chatandroidapp.fragments;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -14,42 +18,133 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.chatandroidapp.activities.ChatCreatorActivity;
 import com.example.chatandroidapp.adapters.ChatsAdapter;
+import com.example.chatandroidapp.database.UserDirectory;
 import com.example.chatandroidapp.databinding.FragmentChatsBinding;
+import com.example.chatandroidapp.interfaces.SearchableView;
 import com.example.chatandroidapp.models.Chat;
+import com.example.chatandroidapp.models.Message;
+import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AppExecutors;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
  * ChatsFragment displays a list of chat previews in a RecyclerView.
  * Users can tap on a chat to open it in MessagingActivity or
  * click on a FloatingActionButton (FAB) to proceed to a ChatCreatorActivity to start a new chat.
+ *
+ * <p>All chats of the user are watched through a single query listener, whose document changes are applied
+ * to the list incrementally. The query is not ordered, since Firestore leaves out documents lacking the
+ * ordered field, and chats created before the recent message preview have no recentMessageSentDate;
+ * chats are sorted by last activity on the computation executor when published instead.</p>
+ *
+ * <p>The list is searchable by participant names and recent-message text. Participant names are kept
+ * per chat as the chat listener delivers updates, queries are debounced, and filtering and diffing run
+ * on the computation executor before the result is published to the adapter.</p>
  */
-public class ChatsFragment extends Fragment {
+public class ChatsFragment extends Fragment implements SearchableView {
     /**
      * Tag for logging purposes.
      */
     private static final String TAG = "ChatsFragment";
 
     /**
-     * List of Chat objects shown in the RecyclerView.
+     * Delay after the last keystroke before a search query is applied.
+     */
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+
+    /**
+     * Time after which a creator found to exist is verified again.
+     */
+    private static final long CREATOR_VERIFICATION_TTL_MS = 10 * 60 * 1000L;
+
+    /**
+     * Orders chats by last activity, newest first: the recent message date, or the creation date of chats
+     * without messages. Chats without either come last.
+     */
+    private static final Comparator<Chat> ACTIVITY_ORDER = (first, second) -> {
+        Date firstActivity = activityDateOf(first);
+        Date secondActivity = activityDateOf(second);
+        if (firstActivity == null || secondActivity == null) {
+            if (firstActivity != secondActivity) {
+                return firstActivity == null ? 1 : -1;
+            }
+        } else if (!firstActivity.equals(secondActivity)) {
+            return secondActivity.compareTo(firstActivity);
+        }
+        return first.id.compareTo(second.id);
+    };
+
+    /**
+     * Elapsed-realtime at which each creator was last found to exist, key is the creator's user ID.
+     */
+    private final Map<String, Long> creatorsVerifiedAt = new HashMap<>();
+
+    /**
+     * List of every Chat of the user in the order of the chat query, so document change indices apply to it;
+     * the RecyclerView shows the ones matching the search query, most recently active first.
      */
     private final List<Chat> chatList = new ArrayList<>();
 
     /**
-     * Map to keep track of chat listeners, key is chatId.
+     * Index of chatList by chatId, so a chat can be looked up without scanning the list.
+     */
+    private final Map<String, Chat> chatsById = new HashMap<>();
+
+    /**
+     * Lower-cased participant names of each chat, key is chatId, kept up to date by the chat listener.
+     */
+    private final Map<String, String> participantNames = new HashMap<>();
+
+    /**
+     * IDs of chats found invalid and being deleted; they stay in chatList, which must match the query,
+     * until the chat listener reports their removal, but are no longer shown.
+     */
+    private final Set<String> discardedChatIds = new HashSet<>();
+
+    /**
+     * Whether the one-time backfill of missing previews was already checked while this fragment listened.
+     */
+    private boolean isPreviewBackfillChecked = false;
+
+    /**
+     * Handler used to debounce search queries.
+     */
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Applies the latest search query once typing pauses.
+     */
+    private final Runnable pendingSearch = () -> publishChats(false);
+
+    /**
+     * Current search query, lower-cased and trimmed.
+     */
+    private String searchQuery = "";
+
+    /**
+     * Incremented on every publish, so results of superseded publishes are dropped.
      */
-    private final Map<String, ListenerRegistration> chatListeners = new HashMap<>();
+    private int publishGeneration = 0;
 
     /**
      * Binding for fragment_chats.xml layout.
@@ -67,9 +162,9 @@ public class ChatsFragment extends Fragment {
     private ChatsAdapter chatsAdapter;
 
     /**
-     * Real-time listener registration for removing snapshot listener on cleanup.
+     * Real-time listener registration of the chat query, for removing it on cleanup.
      */
-    private ListenerRegistration userListenerRegistration;
+    private ListenerRegistration chatsListenerRegistration;
 
     /**
      * PreferenceManager instance for accessing user preferences.
@@ -98,7 +193,7 @@ public class ChatsFragment extends Fragment {
         showLoading(false, "No chats");
 
         initRecyclerView();
-        listenForUserChatIds();
+        listenForChats();
         setListeners();
     }
 
@@ -108,14 +203,10 @@ public class ChatsFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        if (userListenerRegistration != null) {
-            userListenerRegistration.remove();
+        searchHandler.removeCallbacks(pendingSearch);
+        if (chatsListenerRegistration != null) {
+            chatsListenerRegistration.remove();
         }
-        // Remove all chat listeners
-        for (Map.Entry<String, ListenerRegistration> entry : chatListeners.entrySet()) {
-            entry.getValue().remove();
-        }
-        chatListeners.clear();
         binding = null;
     }
 
@@ -123,185 +214,367 @@ public class ChatsFragment extends Fragment {
      * Initializes the RecyclerView with a linear layout and sets the ChatsAdapter.
      */
     private void initRecyclerView() {
-        chatsAdapter = new ChatsAdapter(chatList, requireContext());
+        chatsAdapter = new ChatsAdapter(requireContext());
         binding.recyclerViewChats.setLayoutManager(new LinearLayoutManager(getContext()));
         binding.recyclerViewChats.setAdapter(chatsAdapter);
     }
 
     /**
-     * Sets up a snapshot listener to the current user's document to monitor changes in the "chatIds" array.
-     * Whenever "chatIds" changes, update the chat listeners accordingly.
+     * Listens to every chat the current user participates in through a single query.
      */
-    private void listenForUserChatIds() {
-
+    private void listenForChats() {
         final String currentUserId = preferenceManager.getString(Constants.KEY_ID, "");
 
-        // Listen to changes in the current user's document
-        userListenerRegistration = firestore.collection(Constants.KEY_COLLECTION_USERS)
-                .document(currentUserId)
-                .addSnapshotListener((snapshot, error) -> {
+        chatsListenerRegistration = firestore.collection(Constants.KEY_COLLECTION_CHATS)
+                .whereArrayContains("userIdList", currentUserId)
+                .addSnapshotListener((snapshots, error) -> {
                     if (error != null) {
-                        logCriticalError("Failed to listen for user's chatIds.", error);
-                    } else if (snapshot == null || !snapshot.exists()) {
-                        Utilities.showToast(getContext(), "User data not found.", Utilities.ToastType.ERROR);
-                        showLoading(false, "No chats");
-                    } else {
-                        List<String> chatIds = (List<String>) snapshot.get("chatIds");
-
-                        if (chatIds == null || chatIds.isEmpty()) {
-                            chatList.clear();
-                            chatsAdapter.notifyDataSetChanged();
-                            removeAllChatListeners();
-                            showLoading(false, "No chats");
-                        } else {
-                            updateChatListeners(new HashSet<>(chatIds), currentUserId);
+                        logCriticalError("Failed to listen for chats.", error);
+                    } else if (snapshots != null) {
+                        applyChatChanges(snapshots.getDocumentChanges(), currentUserId);
+                        if (!snapshots.getMetadata().isFromCache()) {
+                            backfillPreviewsOnce(currentUserId);
                         }
                     }
                 });
     }
 
     /**
-     * Updates the chat listeners based on the provided set of chatIds.
-     * Adds listeners for new chatIds and removes listeners for removed chatIds.
+     * Applies the document changes of a chat query snapshot to the chat list at the positions
+     * reported by the query, then publishes the list. Pending server timestamps are estimated,
+     * so a chat with a message being sent moves to the top at once.
      *
-     * @param newChatIds    The updated set of chatIds.
+     * @param changes       The document changes, in the order they must be applied.
      * @param currentUserId The ID of the current user.
      */
-    private void updateChatListeners(Set<String> newChatIds, String currentUserId) {
-        Set<String> existingChatIds = chatListeners.keySet();
+    private void applyChatChanges(List<DocumentChange> changes, String currentUserId) {
+        if (changes.isEmpty()) {
+            publishChats(false); // Publishes the empty state of the first snapshot
+            return;
+        }
 
-        // Determine which chatIds to add and which to remove
-        Set<String> chatIdsToAdd = new HashSet<>(newChatIds);
-        chatIdsToAdd.removeAll(existingChatIds);
+        boolean hasNewActivity = false;
+        for (DocumentChange change : changes) {
+            Chat chat = change.getDocument().toObject(Chat.class, DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
+            switch (change.getType()) {
+                case ADDED:
+                    chatList.add(change.getNewIndex(), chat);
+                    chatsById.put(chat.id, chat);
+                    updateParticipantNames(chat);
+                    verifyCreator(chat, currentUserId);
+                    hasNewActivity = true;
+                    break;
+                case MODIFIED:
+                    Chat previous = chatList.remove(change.getOldIndex());
+                    chatList.add(change.getNewIndex(), chat);
+                    chatsById.put(chat.id, chat);
+                    if (!previous.userIdList.equals(chat.userIdList)) {
+                        updateParticipantNames(chat);
+                    }
+                    verifyCreator(chat, currentUserId);
+                    hasNewActivity |= !Objects.equals(previous.recentMessageSentDate, chat.recentMessageSentDate);
+                    break;
+                case REMOVED:
+                    chatList.remove(change.getOldIndex());
+                    chatsById.remove(chat.id);
+                    participantNames.remove(chat.id);
+                    discardedChatIds.remove(chat.id);
+                    break;
+            }
+        }
+        publishChats(hasNewActivity);
+    }
+
+    /**
+     * Verifies that the creator of the given chat exists in the users collection.
+     * If the creator does not exist, deletes the chat and removes the chatId from user's chatIds.
+     * A creator found to exist is not checked again for CREATOR_VERIFICATION_TTL_MS, and the lookup goes
+     * through the UserDirectory, so chat updates such as new messages normally cost no extra read.
+     *
+     * @param chat          The Chat object to verify.
+     * @param currentUserId The ID of the current user.
+     */
+    private void verifyCreator(Chat chat, String currentUserId) {
+        Long verifiedAt = creatorsVerifiedAt.get(chat.creatorId);
+        if (verifiedAt != null && SystemClock.elapsedRealtime() - verifiedAt < CREATOR_VERIFICATION_TTL_MS) {
+            return; // Verified recently, so a chat update needs no read
+        }
 
-        Set<String> chatIdsToRemove = new HashSet<>(existingChatIds);
-        chatIdsToRemove.removeAll(newChatIds);
+        UserDirectory.getInstance().loadUsers(Collections.singletonList(chat.creatorId), new UserDirectory.OnUsersLoadedListener() {
+            @Override
+            public void onUsersLoaded(@NonNull Map<String, User> users, @NonNull Set<String> missingUserIds) {
+                if (!missingUserIds.contains(chat.creatorId)) {
+                    creatorsVerifiedAt.put(chat.creatorId, SystemClock.elapsedRealtime());
+                } else if (binding != null) {
+                    // Creator does not exist, delete chat and remove chatId
+                    creatorsVerifiedAt.remove(chat.creatorId);
+                    deleteChatAndRemoveId(chat.id, currentUserId);
+                    Utilities.showToast(getContext(), "Removed chat due to missing creator.", Utilities.ToastType.WARNING);
+                    removeChat(chat.id);
+                }
+            }
 
-        // Remove listeners for removed chatIds
-        for (String chatId : chatIdsToRemove) {
-            ListenerRegistration registration = chatListeners.get(chatId);
-            if (registration != null) {
-                registration.remove();
-                chatListeners.remove(chatId);
+            @Override
+            public void onFailure(@NonNull Exception e) {
+                if (binding != null) {
+                    logCriticalError("Failed to verify creator for chatId: " + chat.id, e);
+                }
             }
-            // Remove the chat from the chatList if it's no longer in chatIds
-            chatList.removeIf(chat -> chat.id.equals(chatId));
-            chatsAdapter.notifyDataSetChanged();
+        });
+    }
+
+    /**
+     * Backfills the missing previews of the current user's chats once per user and device, on the first snapshot
+     * from the server. The backfill is recorded before it runs, so it is never repeated after a restart;
+     * a chat whose backfill fails shows no preview until its next message is sent.
+     *
+     * @param currentUserId The ID of the current user.
+     */
+    private void backfillPreviewsOnce(String currentUserId) {
+        if (isPreviewBackfillChecked) {
+            return;
+        }
+        isPreviewBackfillChecked = true;
+        if (currentUserId.equals(preferenceManager.getString(Constants.KEY_PREVIEWS_BACKFILLED_USER, ""))) {
+            return;
+        }
+        preferenceManager.putString(Constants.KEY_PREVIEWS_BACKFILLED_USER, currentUserId);
+        for (Chat chat : chatList) {
+            backfillPreviewIfMissing(chat);
         }
+    }
 
-        // Add listeners for new chatIds
-        for (String chatId : chatIdsToAdd) {
-            addChatListener(chatId, currentUserId);
+    /**
+     * Fills in the recent message preview of a chat whose last message was sent before previews were embedded.
+     * The recent message and its sender are read, and the preview is written back into the chat document,
+     * which the chat listener then delivers like any other update.
+     *
+     * @param chat The chat to check.
+     */
+    private void backfillPreviewIfMissing(Chat chat) {
+        if (chat.recentMessageId.isEmpty() || chat.recentMessageSentDate != null) {
+            return;
         }
 
-        // Optionally, refresh the UI
-        if (!chatIdsToAdd.isEmpty() || !chatIdsToRemove.isEmpty()) {
-            finalizeChatList();
+        DocumentReference chatReference = firestore.collection(Constants.KEY_COLLECTION_CHATS).document(chat.id);
+        chatReference.collection(Constants.KEY_COLLECTION_MESSAGES)
+                .document(chat.recentMessageId)
+                .get()
+                .addOnSuccessListener(messageSnapshot -> {
+                    Message message = messageSnapshot.toObject(Message.class);
+                    if (message == null || message.sentDate == null) {
+                        return; // The recent message is gone; the next message sent writes a preview
+                    }
+                    UserDirectory.getInstance().getUser(message.senderId, sender ->
+                            writePreview(chatReference, message, sender));
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to read the recent message of chatId: " + chat.id, e));
+    }
+
+    /**
+     * Writes the preview of a recent message into its chat, unless another message was sent meanwhile.
+     * The check and the write run in one transaction, so a newer preview is never overwritten.
+     *
+     * @param chatReference The chat document.
+     * @param message       The recent message.
+     * @param sender        The message's sender.
+     */
+    private void writePreview(DocumentReference chatReference, Message message, User sender) {
+        firestore.runTransaction(transaction -> {
+            DocumentSnapshot chatSnapshot = transaction.get(chatReference);
+            if (message.id.equals(chatSnapshot.getString("recentMessageId"))
+                    && chatSnapshot.getDate("recentMessageSentDate") == null) {
+                transaction.update(chatReference,
+                        "recentMessageContent", Chat.toPreviewSnippet(message.content),
+                        "recentMessageSenderId", message.senderId,
+                        "recentMessageSenderName", displayNameOf(sender),
+                        "recentMessageSenderAvatarVersion", sender.avatarVersion,
+                        "recentMessageSentDate", message.sentDate);
+            }
+            return null;
+        }).addOnFailureListener(e -> Log.w(TAG, "Failed to backfill the preview of chatId: " + chatReference.getId(), e));
+    }
+
+    /**
+     * Builds a user's display name for a recent message preview.
+     *
+     * @param user The user.
+     * @return The full name, or the email or phone number when the name is unavailable.
+     */
+    private static String displayNameOf(User user) {
+        if (!TextUtils.isEmpty(user.firstName) && !TextUtils.isEmpty(user.lastName)) {
+            return user.firstName + " " + user.lastName;
         }
+        return !TextUtils.isEmpty(user.email) ? user.email : nullToEmpty(user.phone);
     }
 
     /**
-     * Finalizes the chat list by updating the UI.
+     * Hides a chat from the UI right away, before the chat listener reports its deletion.
+     *
+     * @param chatId The ID of the chat to remove.
      */
-    private void finalizeChatList() {
-        if (chatList.isEmpty()) {
-            showLoading(false, "No chats");
-        } else {
-            showLoading(false, null);
-            chatsAdapter.notifyDataSetChanged();
-            binding.recyclerViewChats.smoothScrollToPosition(chatList.size() - 1);
+    private void removeChat(String chatId) {
+        if (discardedChatIds.add(chatId)) {
+            publishChats(false);
         }
     }
 
+    // ============================== Chat Search ==============================
+
     /**
-     * Adds a snapshot listener for a specific chatId.
+     * Filters the chats by participant names and recent-message text once typing pauses.
      *
-     * @param chatId        The ID of the chat to listen to.
-     * @param currentUserId The ID of the current user.
+     * @param query The search query.
      */
-    private void addChatListener(String chatId, String currentUserId) {
-        ListenerRegistration registration = firestore.collection(Constants.KEY_COLLECTION_CHATS)
-                .document(chatId)
-                .addSnapshotListener((chatSnapshot, error) -> {
-                    if (error != null) {
-                        logCriticalError("Failed to listen for chatId: " + chatId, error);
-                    } else if (chatSnapshot == null || !chatSnapshot.exists()) {
-                        removeChatIdFromUser(chatId, currentUserId);
-                        Utilities.showToast(getContext(), "Removed non-existing chat.", Utilities.ToastType.INFO);
-                        chatList.removeIf(chat -> chat.id.equals(chatId));
-                        chatsAdapter.notifyDataSetChanged();
-                    } else {
-                        Chat chat = chatSnapshot.toObject(Chat.class);
-
-                        if (chat == null) {
-                            removeChatIdFromUser(chatId, currentUserId);
-                            Utilities.showToast(getContext(), "Removed invalid chat.", Utilities.ToastType.INFO);
-                            chatList.removeIf(c -> c.id.equals(chatId));
-                            chatsAdapter.notifyDataSetChanged();
-                        } else {
-                            verifyCreator(chat, currentUserId);
-                        }
+    @Override
+    public void filterData(String query) {
+        searchQuery = query != null ? query.trim().toLowerCase(Locale.getDefault()) : "";
+        searchHandler.removeCallbacks(pendingSearch);
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
+
+    /**
+     * Resolves the participant names of a chat through the UserDirectory and stores them for searching.
+     * Re-applies an active search if the names changed.
+     *
+     * @param chat The chat whose participants to resolve.
+     */
+    private void updateParticipantNames(Chat chat) {
+        UserDirectory.getInstance().loadUsers(chat.userIdList, new UserDirectory.OnUsersLoadedListener() {
+            @Override
+            public void onUsersLoaded(@NonNull Map<String, User> users, @NonNull Set<String> missingUserIds) {
+                StringBuilder names = new StringBuilder();
+                for (String userId : chat.userIdList) {
+                    User user = users.get(userId);
+                    if (user != null) {
+                        names.append(user.firstName).append(' ').append(user.lastName).append('\n');
                     }
-                });
+                }
+                String searchableNames = names.toString().toLowerCase(Locale.getDefault());
+                if (binding == null || !hasParticipants(chat) || searchableNames.equals(participantNames.get(chat.id))) {
+                    return; // The view is gone, the participants changed meanwhile, or nothing changed
+                }
+                participantNames.put(chat.id, searchableNames);
+                if (!searchQuery.isEmpty()) {
+                    publishChats(false);
+                }
+            }
 
-        // Store the listener
-        chatListeners.put(chatId, registration);
-        Log.d(TAG, "Added listener for chatId: " + chatId);
+            @Override
+            public void onFailure(@NonNull Exception e) {
+                Log.w(TAG, "Failed to load participant names for chatId: " + chat.id, e);
+            }
+        });
     }
 
     /**
-     * Verifies that the creator of the given chat exists in the users collection.
-     * If the creator does not exist, deletes the chat and removes the chatId from user's chatIds.
+     * Checks whether a chat is still listed with the same participants as the given snapshot of it.
      *
-     * @param chat          The Chat object to verify.
-     * @param currentUserId The ID of the current user.
+     * @param chat The chat snapshot.
+     * @return True if the listed chat has the same participants.
      */
-    private void verifyCreator(Chat chat, String currentUserId) {
-        firestore.collection(Constants.KEY_COLLECTION_USERS)
-                .document(chat.creatorId)
-                .get()
-                .addOnSuccessListener(userSnapshot -> {
-                    if (userSnapshot.exists()) {
-                        // Creator exists, add or update chat in chatList
-                        addOrUpdateChat(chat);
+    private boolean hasParticipants(Chat chat) {
+        Chat listedChat = chatsById.get(chat.id);
+        return listedChat != null && listedChat.userIdList.equals(chat.userIdList);
+    }
+
+    /**
+     * Sorts the chats by last activity and filters them by the current search query on the computation executor,
+     * then submits the result
+     * to the adapter, which diffs it off the main thread as well. Only the latest publish is applied.
+     *
+     * @param scrollToTop Whether to reveal a newly active chat at the top once published, if the list was
+     *                    already scrolled to the top and no search is active.
+     */
+    private void publishChats(boolean scrollToTop) {
+        final int generation = ++publishGeneration;
+        final List<Chat> chats = new ArrayList<>(chatList.size());
+        for (Chat chat : chatList) {
+            if (!discardedChatIds.contains(chat.id)) {
+                chats.add(chat);
+            }
+        }
+        final Map<String, String> names = new HashMap<>(participantNames);
+        final String query = searchQuery;
+
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.computation().execute(() -> {
+            Collections.sort(chats, ACTIVITY_ORDER);
+            final List<Chat> filteredChats = filterChats(chats, names, query);
+            executors.mainThread().execute(() -> {
+                if (binding == null || generation != publishGeneration) {
+                    return;
+                }
+                final boolean wasAtTop = !binding.recyclerViewChats.canScrollVertically(-1);
+                chatsAdapter.submitList(filteredChats, () -> {
+                    if (binding == null) {
+                        return;
+                    }
+                    if (filteredChats.isEmpty()) {
+                        showLoading(false, query.isEmpty() ? "No chats" : "No matching chats");
                     } else {
-                        // Creator does not exist, delete chat and remove chatId
-                        deleteChatAndRemoveId(chat.id, currentUserId);
-                        Utilities.showToast(getContext(), "Removed chat due to missing creator.", Utilities.ToastType.WARNING);
-                        // Remove from chatList if present
-                        chatList.removeIf(c -> c.id.equals(chat.id));
-                        chatsAdapter.notifyDataSetChanged();
+                        showLoading(false, null);
+                        if (scrollToTop && wasAtTop && query.isEmpty()) {
+                            binding.recyclerViewChats.scrollToPosition(0);
+                        }
                     }
-                })
-                .addOnFailureListener(e -> {
-                    logCriticalError("Failed to verify creator for chatId: " + chat.id, e);
                 });
+            });
+        });
     }
 
     /**
-     * Adds a new chat to the chatList or updates it if it already exists.
+     * Returns the chats whose participant names, recent message or sender contain every term of the query.
      *
-     * @param chat The Chat object to add or update.
-     */
-    private void addOrUpdateChat(Chat chat) {
-        // Check if the chat already exists in the list
-        int index = -1;
-        for (int i = 0; i < chatList.size(); i++) {
-            if (chatList.get(i).id.equals(chat.id)) {
-                index = i;
-                break;
+     * @param chats The chats to filter.
+     * @param names The lower-cased participant names of each chat.
+     * @param query The lower-cased query.
+     * @return The matching chats in their original order, or all chats if the query is empty.
+     */
+    private static List<Chat> filterChats(List<Chat> chats, Map<String, String> names, String query) {
+        if (query.isEmpty()) {
+            return chats;
+        }
+        String[] terms = query.split("\\s+");
+        List<Chat> matches = new ArrayList<>();
+        for (Chat chat : chats) {
+            String searchableText = names.getOrDefault(chat.id, "") + "\n"
+                    + nullToEmpty(chat.recentMessageSenderName) + "\n"
+                    + nullToEmpty(chat.recentMessageContent);
+            searchableText = searchableText.toLowerCase(Locale.getDefault());
+
+            boolean matchesAllTerms = true;
+            for (String term : terms) {
+                if (!searchableText.contains(term)) {
+                    matchesAllTerms = false;
+                    break;
+                }
+            }
+            if (matchesAllTerms) {
+                matches.add(chat);
             }
         }
+        return matches;
+    }
 
-        if (index != -1) { // Update existing chat
-            chatList.set(index, chat);
-        } else { // Add new chat
-            chatList.add(chat);
-        }
+    /**
+     * Returns the date a chat was last active.
+     *
+     * @param chat The chat.
+     * @return The recent message date, the creation date if the chat has no preview yet, or null.
+     */
+    private static Date activityDateOf(Chat chat) {
+        return chat.recentMessageSentDate != null ? chat.recentMessageSentDate : chat.createdDate;
+    }
 
-        // Notify the adapter
-        chatsAdapter.notifyDataSetChanged();
-        finalizeChatList();
+    /**
+     * Returns the given text, or an empty string if it is null.
+     *
+     * @param text The text.
+     * @return The text or "".
+     */
+    private static String nullToEmpty(String text) {
+        return text != null ? text : "";
     }
 
     /**
@@ -335,17 +608,6 @@ public class ChatsFragment extends Fragment {
                 });
     }
 
-    /**
-     * Removes all existing chat listeners.
-     */
-    private void removeAllChatListeners() {
-        for (Map.Entry<String, ListenerRegistration> entry : chatListeners.entrySet()) {
-            entry.getValue().remove();
-            Log.d(TAG, "Removed listener for chatId: " + entry.getKey());
-        }
-        chatListeners.clear();
-    }
-
     /**
      * Configures click listeners for UI elements, such as the FloatingActionButton that starts
      * a new chat in InitiateChatActivity.
@@ -4,7 +4,6 @@ import android.content.Intent;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
-import android.provider.MediaStore;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -18,13 +17,22 @@ import androidx.fragment.app.Fragment;
 
 import com.example.chatandroidapp.activities.OtpVerificationActivity;
 import com.example.chatandroidapp.activities.SignInActivity;
+import com.example.chatandroidapp.database.AvatarStore;
+import com.example.chatandroidapp.database.MessageStore;
+import com.example.chatandroidapp.database.UserDirectory;
 import com.example.chatandroidapp.databinding.FragmentProfileBinding;
 import com.example.chatandroidapp.models.User;
+import com.example.chatandroidapp.utilities.AppExecutors;
+import com.example.chatandroidapp.utilities.AvatarCache;
+import com.example.chatandroidapp.utilities.AvatarEncoder;
 import com.example.chatandroidapp.utilities.Constants;
+import com.example.chatandroidapp.utilities.ImageProcessor;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -97,23 +105,59 @@ public class ProfileFragment extends Fragment {
 
     /**
      * Handles the selected image, updating the profile picture in the UI and Firestore.
+     * The image is downsampled and encoded in the background, so the full-size photo is never decoded.
      *
      * @param imageUri The URI of the selected image.
      */
     private void handleImageSelection(Uri imageUri) {
-        try {
-            Bitmap bitmap = MediaStore.Images.Media.getBitmap(requireActivity().getContentResolver(), imageUri);
-            binding.imageProfile.setImageBitmap(bitmap);
+        ImageProcessor.processProfileImage(requireContext(), imageUri, new ImageProcessor.OnImageProcessedListener() {
+            @Override
+            public void onImageProcessed(@NonNull Bitmap preview, @NonNull Map<Integer, byte[]> variants) {
+                if (!isAdded()) {
+                    return;
+                }
+                binding.imageProfile.setImageBitmap(preview);
+                uploadAvatar(variants);
+            }
+
+            @Override
+            public void onImageProcessingFailed(@NonNull Exception e) {
+                Log.e(TAG, "Error handling selected image", e);
+                if (isAdded()) {
+                    Utilities.showToast(requireContext(), "Failed to process the image", Utilities.ToastType.ERROR);
+                }
+            }
+        });
+    }
 
-            String encodedImage = User.encodeImage(bitmap);
-            updateFirestoreField(Constants.KEY_IMAGE, encodedImage);
-            preferenceManager.putString(Constants.KEY_IMAGE, encodedImage);
 
-            Utilities.showToast(requireContext(), "Profile image updated", Utilities.ToastType.SUCCESS);
-        } catch (Exception e) {
-            Log.e(TAG, "Error handling selected image", e);
-            Utilities.showToast(requireContext(), "Failed to process the image", Utilities.ToastType.ERROR);
-        }
+    /**
+     * Stores a new avatar in the AvatarStore and its version on the user document in one batch,
+     * keeping a local copy of the largest variant in SharedPreferences for the profile screen.
+     *
+     * @param variants The encoded avatar variants keyed by size.
+     */
+    private void uploadAvatar(Map<Integer, byte[]> variants) {
+        String userId = preferenceManager.getString(Constants.KEY_ID, "");
+        long avatarVersion = AvatarStore.newVersion();
+
+        WriteBatch batch = firebaseFirestore.batch();
+        AvatarStore.getInstance().updateAvatar(batch, userId, avatarVersion, variants);
+        batch.commit()
+                .addOnSuccessListener(unused -> {
+                    UserDirectory.getInstance().invalidate(userId);
+                    preferenceManager.putString(Constants.KEY_IMAGE, AvatarEncoder.toBase64(variants.get(AvatarEncoder.LARGEST_SIZE)));
+                    preferenceManager.putLong(Constants.KEY_AVATAR_VERSION, avatarVersion);
+                    if (isAdded()) {
+                        Utilities.showToast(requireContext(), "Profile image updated", Utilities.ToastType.SUCCESS);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to upload profile image", e);
+                    if (isAdded()) {
+                        Utilities.showToast(requireContext(), "Failed to update image", Utilities.ToastType.ERROR);
+                    }
+                });
     }
 
 
@@ -126,10 +170,15 @@ public class ProfileFragment extends Fragment {
         binding.inputEmail.setText(preferenceManager.getString(Constants.KEY_EMAIL, ""));
         binding.inputPhoneNumber.setText(preferenceManager.getString(Constants.KEY_PHONE, ""));
 
-        String encodedImage = preferenceManager.getString(Constants.KEY_IMAGE, null);
+        // Prefer the local copy of the user's own avatar; fall back to the AvatarStore after signing in on a new device
+        String encodedImage = preferenceManager.getString(Constants.KEY_IMAGE, "");
+        long avatarVersion = preferenceManager.getLong(Constants.KEY_AVATAR_VERSION, 0);
 
-        if (encodedImage != null && !encodedImage.isEmpty()) {
-            binding.imageProfile.setImageBitmap(User.getBitmapFromEncodedString(encodedImage));
+        if (!encodedImage.isEmpty() || avatarVersion > 0) {
+            AvatarCache.getInstance(requireContext()).loadAvatar(binding.imageProfile,
+                    preferenceManager.getString(Constants.KEY_ID, ""),
+                    encodedImage.isEmpty() ? avatarVersion : 0,
+                    encodedImage);
         }
     }
 
@@ -221,7 +270,10 @@ public class ProfileFragment extends Fragment {
         firebaseFirestore.collection(Constants.KEY_COLLECTION_USERS)
                 .document(preferenceManager.getString(Constants.KEY_ID, ""))
                 .update(updates)
-                .addOnSuccessListener(unused -> Log.d(TAG, "updateFirestoreField: Updated " + key + " successfully"))
+                .addOnSuccessListener(unused -> {
+                    UserDirectory.getInstance().invalidate(preferenceManager.getString(Constants.KEY_ID, ""));
+                    Log.d(TAG, "updateFirestoreField: Updated " + key + " successfully");
+                })
                 .addOnFailureListener(e -> Utilities.showToast(requireContext(), "Failed to update " + key, Utilities.ToastType.ERROR));
     }
 
@@ -239,6 +291,7 @@ public class ProfileFragment extends Fragment {
         updates.put(Constants.KEY_FIRST_NAME, firstName);
         updates.put(Constants.KEY_LAST_NAME, lastName);
         updates.put(Constants.KEY_EMAIL, email);
+        updates.put(Constants.KEY_UPDATED_AT, FieldValue.serverTimestamp());
         updateFirestore(updates, "Profile updated successfully");
 
         preferenceManager.putString(Constants.KEY_FIRST_NAME, firstName);
@@ -257,6 +310,8 @@ public class ProfileFragment extends Fragment {
 
         firebaseAuth.signOut();
         preferenceManager.clear();
+        MessageStore messageStore = MessageStore.getInstance(requireContext());
+        AppExecutors.getInstance().diskIO().execute(messageStore::deleteAll); // Cached messages belong to this user
 
         Intent intent = new Intent(requireContext(), SignInActivity.class);
         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -315,7 +370,10 @@ public class ProfileFragment extends Fragment {
         firebaseFirestore.collection(Constants.KEY_COLLECTION_USERS)
                 .document(preferenceManager.getString(Constants.KEY_ID, ""))
                 .update(updates)
-                .addOnSuccessListener(unused -> Utilities.showToast(requireContext(), successMessage, Utilities.ToastType.SUCCESS))
+                .addOnSuccessListener(unused -> {
+                    UserDirectory.getInstance().invalidate(preferenceManager.getString(Constants.KEY_ID, ""));
+                    Utilities.showToast(requireContext(), successMessage, Utilities.ToastType.SUCCESS);
+                })
                 .addOnFailureListener(e -> Utilities.showToast(requireContext(), "Failed to update profile", Utilities.ToastType.ERROR));
     }
 }
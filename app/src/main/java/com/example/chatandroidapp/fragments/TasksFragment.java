@@ -1,44 +1,69 @@
 package com.example.chatandroidapp.fragments;
 
-import android.app.Activity;
+import android.app.DatePickerDialog;
 import android.content.Intent;
-import android.icu.util.Calendar;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.CalendarView;
 
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.chatandroidapp.activities.TaskEditorActivity;
 import com.example.chatandroidapp.adapters.TasksAdapter;
+import com.example.chatandroidapp.database.TaskCleanup;
+import com.example.chatandroidapp.database.TaskIndex;
+import com.example.chatandroidapp.database.TaskMigration;
 import com.example.chatandroidapp.databinding.FragmentTasksBinding;
 import com.example.chatandroidapp.models.Task;
 import com.example.chatandroidapp.utilities.Constants;
 import com.example.chatandroidapp.utilities.PreferenceManager;
 import com.example.chatandroidapp.utilities.Utilities;
-import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.WriteBatch;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.Iterator;
+import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * TasksFragment manages task display, filtering, and navigation to TaskEditorActivity for adding or editing tasks.
- * It handles fetching tasks from Firestore, filtering them by date or completion status,
+ * It handles syncing tasks from Firestore, filtering them by date or completion status,
  * and provides UI interactions for marking tasks complete, editing, and deleting.
+ *
+ * <p>Tasks are synced by two snapshot listeners on the user's Tasks subcollection: one for every pending task,
+ * and one for the tasks due in the month of the selected day, ranged on the typed dueAt. Their document
+ * changes are applied to a TaskIndex bucketed by completion date, so selecting a day on the calendar or
+ * returning to the pending tasks is a lookup rather than a scan of every task, an edit arrives as a single
+ * document change, and completed tasks outside the shown month are never downloaded.</p>
+ *
+ * <p>Selected tasks are completed, rescheduled or deleted together in WriteBatch commits of up to 500 writes.
+ * The batches are committed one after another, and the listeners deliver each batch as a single snapshot,
+ * so the list is diffed once per batch rather than once per task.</p>
  */
 public class TasksFragment extends Fragment {
+    /**
+     * Value of selectedDayKey while all pending tasks are shown
+     */
+    private static final int NO_DAY_SELECTED = -1;
+
+    /**
+     * Most writes Firestore accepts in one batch
+     */
+    private static final int BATCH_SIZE = 500;
+
     /**
      * ViewBinding instance for fragment_tasks.xml
      */
@@ -50,14 +75,29 @@ public class TasksFragment extends Fragment {
     private TasksAdapter tasksAdapter;
 
     /**
-     * Full list of tasks obtained from Firestore
+     * Date index of every task obtained from Firestore
+     */
+    private final TaskIndex taskIndex = new TaskIndex();
+
+    /**
+     * yyyyMMdd key of the day selected on the calendar, or NO_DAY_SELECTED when the pending tasks are shown
+     */
+    private int selectedDayKey = NO_DAY_SELECTED;
+
+    /**
+     * Latest pending tasks delivered by the pending listener, key is the task ID
+     */
+    private final Map<String, Task> pendingTasks = new HashMap<>();
+
+    /**
+     * Latest tasks delivered by the month listener, key is the task ID
      */
-    private List<Task> tasksList;
+    private final Map<String, Task> monthTasks = new HashMap<>();
 
     /**
-     * Current filtered list of tasks displayed to the user
+     * yyyyMMdd key of the first day of the month the month listener covers
      */
-    private List<Task> tasksListFiltered;
+    private int listenedMonthKey = NO_DAY_SELECTED;
 
     /**
      * PreferenceManager for storing user-related data
@@ -70,15 +110,19 @@ public class TasksFragment extends Fragment {
     private FirebaseFirestore db;
 
     /**
-     * ActivityResultLauncher for handling results from TaskEditorActivity
+     * Real-time listener registration of the pending tasks, for removing it on cleanup
      */
-    private final ActivityResultLauncher<Intent> taskEditorLauncher = registerForActivityResult(
-            new ActivityResultContracts.StartActivityForResult(),
-            result -> {
-                if (result.getResultCode() == Activity.RESULT_OK) {
-                    fetchTasksFromFirestore();
-                }
-            });
+    private ListenerRegistration pendingTasksListener;
+
+    /**
+     * Real-time listener registration of the tasks due in the listened month, for removing it on cleanup
+     */
+    private ListenerRegistration monthTasksListener;
+
+    /**
+     * Whether a bulk operation is committing its batches, during which the bulk actions show its progress
+     */
+    private boolean isBulkOperationRunning = false;
 
     /**
      * Called to have the fragment instantiate its user interface view.
@@ -96,8 +140,10 @@ public class TasksFragment extends Fragment {
         db = FirebaseFirestore.getInstance();
 
         setupRecyclerView();
-        fetchTasksFromFirestore();
+        listenForTasks();
         setupListeners();
+        TaskCleanup.getInstance(requireContext()).runIfDue();
+        TaskMigration.getInstance(requireContext()).migrateIfNeeded();
 
         return binding.getRoot();
     }
@@ -109,10 +155,7 @@ public class TasksFragment extends Fragment {
     private void setupRecyclerView() {
         showLoading(true, "setting up recycler...");
 
-        tasksListFiltered = new ArrayList<>();
-        tasksList = new ArrayList<>();
-
-        tasksAdapter = new TasksAdapter(tasksListFiltered, new TasksAdapter.TaskAdapterListener() {
+        tasksAdapter = new TasksAdapter(new TasksAdapter.TaskAdapterListener() {
             @Override
             public void onTaskCompletedChanged(Task task) {
                 toggleTaskCompletion(task);
@@ -127,6 +170,11 @@ public class TasksFragment extends Fragment {
             public void onDeleteTask(Task task) {
                 deleteTask(task);
             }
+
+            @Override
+            public void onSelectionChanged(int selectedCount) {
+                updateBulkActionsUI(selectedCount);
+            }
         });
 
         binding.recyclerViewTasks.setLayoutManager(new LinearLayoutManager(getContext()));
@@ -134,27 +182,27 @@ public class TasksFragment extends Fragment {
     }
 
     /**
-     * Toggles the completion status of a given task and updates Firestore accordingly.
+     * Toggles the completion status of a given task in Firestore.
+     * The task listener applies the change locally as soon as it is written.
      *
      * @param task The task whose completion status should be toggled.
      */
     private void toggleTaskCompletion(Task task) {
         showLoading(true, null);
-        task.isCompleted = !task.isCompleted;
 
-        db.collection("Users")
+        db.collection(Constants.KEY_COLLECTION_USERS)
                 .document(preferenceManager.getString(Constants.KEY_ID, ""))
                 .collection("Tasks")
                 .document(task.id)
-                .update("completed", task.isCompleted)
-                .addOnSuccessListener(unused -> {
-                    int position = tasksList.indexOf(task);
+                .update(Constants.KEY_IS_COMPLETED, !task.isCompleted)
+                .addOnSuccessListener(unused -> showLoading(false, null))
+                .addOnFailureListener(e -> {
+                    logCriticalError("Failed to update task completion", e);
+                    int position = tasksAdapter.getCurrentList().indexOf(task);
                     if (position != -1) {
-                        tasksAdapter.notifyItemChanged(position);
+                        tasksAdapter.notifyItemChanged(position); // Restores the checkbox of the unchanged task
                     }
-                    showLoading(false, null);
-                })
-                .addOnFailureListener(e -> logCriticalError("Failed to update task completion", e));
+                });
     }
 
     private void logCriticalError(String message, Exception e) {
@@ -195,7 +243,7 @@ public class TasksFragment extends Fragment {
         if (task != null) {
             intent.putExtra("Task", task);
         }
-        taskEditorLauncher.launch(intent);
+        startActivity(intent);
     }
 
     /**
@@ -223,79 +271,162 @@ public class TasksFragment extends Fragment {
                 .collection("Tasks")
                 .document(task.id)
                 .delete()
-                .addOnSuccessListener(aVoid -> {
-                    // Lastly, remove from the local lists
-                    int position = tasksList.indexOf(task);
-                    if (position != -1) {
-                        tasksList.remove(task);
-                        tasksListFiltered.remove(task);
-                        tasksAdapter.notifyItemRemoved(position);
-                    }
-                    showLoading(false, null);
-                })
+                .addOnSuccessListener(aVoid -> showLoading(false, null))
                 .addOnFailureListener(e -> logCriticalError("Failed to delete task", e));
     }
 
     /**
-     * Fetches tasks from Firestore using the user's list of task document IDs.
-     * Filters out outdated or completed tasks as necessary.
+     * Listens to the current user's pending tasks and to the tasks due in the current month.
      */
-    private void fetchTasksFromFirestore() {
-        String userId = preferenceManager.getString(Constants.KEY_ID, "");
-
-        if (userId.isEmpty()) {
+    private void listenForTasks() {
+        if (preferenceManager.getString(Constants.KEY_ID, "").isEmpty()) {
             Utilities.showToast(getContext(), "User not logged in.", Utilities.ToastType.ERROR);
             return;
         }
 
         showLoading(true, "fetching tasks...");
 
-        db.collection(Constants.KEY_COLLECTION_USERS)
-                .document(userId)
-                .collection("Tasks").get()
-                .addOnSuccessListener(taskSnapshots -> {
-                    tasksList.clear();
-                    tasksListFiltered.clear();
-
-                    for (DocumentSnapshot doc : taskSnapshots.getDocuments()) {
-                        Task task = doc.toObject(Task.class);
-                        if (task != null) {
-                            if (task.isOutdated() && task.isCompleted) {
-                                deleteTask(task);
-                            } else {
-                                tasksList.add(task);
-                                if (!task.isCompleted) {
-                                    tasksListFiltered.add(task);
-                                }
-                            }
-                        }
+        pendingTasksListener = tasksCollection()
+                .whereEqualTo(Constants.KEY_IS_COMPLETED, false)
+                .addSnapshotListener((taskSnapshots, error) -> {
+                    if (error != null) {
+                        logCriticalError("Failed to retrieve task data.", error);
+                    } else if (taskSnapshots != null) {
+                        applyTaskChanges(taskSnapshots.getDocumentChanges(), pendingTasks, monthTasks);
+                        showLoading(false, null);
                     }
-                    updateTaskListUI(null, false);
-                    showLoading(false, null);
-                })
-                .addOnFailureListener(e -> logCriticalError("Failed to retrieve task data.", e));
+                });
+
+        Calendar today = Calendar.getInstance();
+        listenForMonth(TaskIndex.dayKey(today.get(Calendar.YEAR), today.get(Calendar.MONTH), today.get(Calendar.DAY_OF_MONTH)));
+    }
+
+    /**
+     * Moves the month listener to the month of the given day, if it covers another month.
+     * Tasks of the previous month are dropped from the index unless they are still pending.
+     *
+     * @param dayKey The yyyyMMdd key of a day in the month to listen to.
+     */
+    private void listenForMonth(int dayKey) {
+        int monthKey = TaskIndex.monthKeyOf(dayKey);
+        if (monthKey == listenedMonthKey) {
+            return;
+        }
+        int nextMonthKey = TaskIndex.nextMonthKeyOf(dayKey);
+
+        if (monthTasksListener != null) {
+            monthTasksListener.remove();
+        }
+        for (String taskId : monthTasks.keySet()) {
+            if (!pendingTasks.containsKey(taskId)) {
+                taskIndex.remove(taskId);
+            }
+        }
+        monthTasks.clear();
+        listenedMonthKey = monthKey;
+        if (binding != null) {
+            updateMonthTaskCounts(); // Clears the counts of the previous month until the new one is delivered
+        }
+
+        monthTasksListener = tasksCollection()
+                .whereGreaterThanOrEqualTo(Constants.KEY_DUE_AT, TaskIndex.startOfDay(monthKey))
+                .whereLessThan(Constants.KEY_DUE_AT, TaskIndex.startOfDay(nextMonthKey))
+                .addSnapshotListener((taskSnapshots, error) -> {
+                    if (error != null) {
+                        logCriticalError("Failed to retrieve task data.", error);
+                    } else if (taskSnapshots != null) {
+                        applyTaskChanges(taskSnapshots.getDocumentChanges(), monthTasks, pendingTasks);
+                    }
+                });
+    }
+
+    /**
+     * Applies the document changes of one listener to the task index, then refreshes the shown tasks.
+     * A task leaving one listener's query stays indexed as long as the other listener still delivers it.
+     * Outdated completed tasks are left out; TaskCleanup deletes them in the background.
+     *
+     * @param changes The document changes.
+     * @param source  The latest tasks of the listener that delivered the changes.
+     * @param other   The latest tasks of the other listener.
+     */
+    private void applyTaskChanges(List<DocumentChange> changes, Map<String, Task> source, Map<String, Task> other) {
+        for (DocumentChange change : changes) {
+            Task task = change.getDocument().toObject(Task.class);
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                source.remove(task.id);
+                task = other.get(task.id);
+                if (task == null) {
+                    taskIndex.remove(change.getDocument().getId());
+                    continue;
+                }
+            } else {
+                source.put(task.id, task);
+            }
+
+            if (task.isOutdated() && task.isCompleted) {
+                taskIndex.remove(task.id);
+            } else {
+                taskIndex.put(task);
+            }
+        }
+        if (binding != null) {
+            updateMonthTaskCounts();
+            showSelectedTasks();
+        }
+    }
+
+    /**
+     * Shows the days of the listened month that have tasks, with their counts, read from the date index
+     * without scanning the tasks. The platform CalendarView cannot decorate single days, so they are listed below it.
+     */
+    private void updateMonthTaskCounts() {
+        Map<Integer, Integer> counts = taskIndex.getTaskCounts(listenedMonthKey, TaskIndex.nextMonthKeyOf(listenedMonthKey));
+        if (counts.isEmpty()) {
+            binding.textMonthTaskCounts.setVisibility(View.GONE);
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        String separator = "Days with tasks: ";
+        for (Map.Entry<Integer, Integer> day : counts.entrySet()) {
+            text.append(separator).append(day.getKey() % 100).append(" (").append(day.getValue()).append(')');
+            separator = " \u00b7 ";
+        }
+        binding.textMonthTaskCounts.setText(text);
+        binding.textMonthTaskCounts.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Returns the current user's Tasks subcollection.
+     *
+     * @return The collection reference.
+     */
+    private CollectionReference tasksCollection() {
+        return db.collection(Constants.KEY_COLLECTION_USERS)
+                .document(preferenceManager.getString(Constants.KEY_ID, ""))
+                .collection(Constants.KEY_COLLECTION_TASKS);
     }
 
     /**
-     * Updates the task list title and notifies the adapter based on the filtered tasks.
+     * Updates the task list title and submits the filtered tasks to the adapter, which diffs them against the shown ones.
      *
+     * @param tasks           The filtered tasks to show.
      * @param formattedDate   The formatted date string to display in the title (can be null for general scenarios).
      * @param showResetButton Whether to show the reset button for filtered views.
      */
-    private void updateTaskListUI(@Nullable String formattedDate, boolean showResetButton) {
+    private void updateTaskListUI(List<Task> tasks, @Nullable String formattedDate, boolean showResetButton) {
         String title;
 
         if (formattedDate != null) {
-            title = tasksListFiltered.isEmpty()
+            title = tasks.isEmpty()
                     ? String.format("No tasks for %s", formattedDate)
                     : String.format("Tasks for %s", formattedDate);
         } else {
-            title = tasksList.isEmpty() ? "No tasks" : "All Pending Tasks";
+            title = tasks.isEmpty() ? "No tasks" : "All Pending Tasks";
         }
 
         binding.textTitleRecyclerView.setText(title);
         binding.buttonAllPendingTasks.setVisibility(showResetButton ? View.VISIBLE : View.GONE);
-        tasksAdapter.notifyDataSetChanged();
+        tasksAdapter.submitList(tasks);
     }
 
     /**
@@ -314,81 +445,240 @@ public class TasksFragment extends Fragment {
              */
             @Override
             public void onSelectedDayChange(@NonNull CalendarView view, int year, int month, int dayOfMonth) {
-                Calendar selectedCalendar = Calendar.getInstance();
-                selectedCalendar.set(year, month, dayOfMonth);
-                long selectedDateMillis = selectedCalendar.getTimeInMillis();
-                filterTasksByDate(selectedDateMillis);
+                filterTasksByDate(TaskIndex.dayKey(year, month, dayOfMonth));
             }
         });
 
         binding.buttonAllPendingTasks.setOnClickListener(view -> showAllNonCompletedTasks());
         binding.buttonAddTask.setOnClickListener(view -> navigateToTaskEditorActivity(null));
+
+        binding.buttonBulkComplete.setOnClickListener(view -> completeSelectedTasks());
+        binding.buttonBulkReschedule.setOnClickListener(view -> rescheduleSelectedTasks());
+        binding.buttonBulkDelete.setOnClickListener(view -> deleteSelectedTasks());
+        binding.buttonCancelSelection.setOnClickListener(view -> tasksAdapter.clearSelection());
     }
 
+    // --- BULK OPERATIONS ---
+
     /**
-     * Filters the tasks by the selected date.
-     * Outdated completed tasks are deleted.
-     * Updates the UI to show tasks for the selected date.
-     *
-     * @param selectedDateMillis The date selected by the user, in milliseconds.
+     * A write applied to each task of a bulk operation.
      */
-    private void filterTasksByDate(long selectedDateMillis) {
-        showLoading(true, null);
-        SimpleDateFormat calendarFormatter = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String formattedSelectedDate = calendarFormatter.format(new Date(selectedDateMillis));
-
-        tasksListFiltered.clear();
-
-        Iterator<Task> iterator = tasksList.iterator();
-        while (iterator.hasNext()) {
-            Task task = iterator.next();
-            try {
-                String taskCompletionDate = task.completionDate;
-                if (task.isOutdated() && task.isCompleted) {
-                    deleteTask(task);
-                    iterator.remove();
-                } else if (taskCompletionDate.equals(formattedSelectedDate)) {
-                    tasksListFiltered.add(task);
-                }
-            } catch (Exception e) {
-                logCriticalError("Error processing task date.", e);
+    private interface BulkWrite {
+        /**
+         * Adds the write of one task to a batch.
+         *
+         * @param batch    The batch being built.
+         * @param task     The task.
+         * @param document The task's document.
+         */
+        void apply(WriteBatch batch, Task task, DocumentReference document);
+    }
+
+    /**
+     * Marks the selected tasks as completed. Tasks already completed are skipped, so they cost no write.
+     */
+    private void completeSelectedTasks() {
+        List<Task> tasks = new ArrayList<>();
+        for (Task task : getSelectedTasks()) {
+            if (!task.isCompleted) {
+                tasks.add(task);
             }
         }
+        runBulkOperation(tasks, "Completing", "Completed %d tasks.",
+                (batch, task, document) -> batch.update(document, Constants.KEY_IS_COMPLETED, true));
+    }
+
+    /**
+     * Asks for a date, then moves the selected tasks to it, each keeping its completion time.
+     */
+    private void rescheduleSelectedTasks() {
+        Calendar initialDay = Calendar.getInstance();
+        if (selectedDayKey != NO_DAY_SELECTED) {
+            initialDay.setTime(TaskIndex.startOfDay(selectedDayKey));
+        }
 
-        updateTaskListUI(formattedSelectedDate, true);
-        showLoading(false, null);
+        new DatePickerDialog(requireContext(), (view, year, month, dayOfMonth) -> {
+            String date = TaskIndex.formatDayKey(TaskIndex.dayKey(year, month, dayOfMonth));
+            runBulkOperation(getSelectedTasks(), "Rescheduling", "Rescheduled %d tasks.", (batch, task, document) -> batch.update(document,
+                    "completionDate", date,
+                    Constants.KEY_DUE_AT, Task.toDueAt(date, task.completionTime)));
+        }, initialDay.get(Calendar.YEAR), initialDay.get(Calendar.MONTH), initialDay.get(Calendar.DAY_OF_MONTH)).show();
     }
 
     /**
-     * Shows all non-completed tasks.
-     * Deletes outdated completed tasks first, then updates the UI.
+     * Asks for confirmation, then deletes the selected tasks.
      */
-    private void showAllNonCompletedTasks() {
-        showLoading(true, "loading tasks...");
-        tasksListFiltered.clear();
+    private void deleteSelectedTasks() {
+        List<Task> tasks = getSelectedTasks();
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Delete tasks")
+                .setMessage(String.format(Locale.getDefault(), "Delete %d selected tasks?", tasks.size()))
+                .setPositiveButton("Delete", (dialog, which) -> runBulkOperation(tasks, "Deleting", "Deleted %d tasks.",
+                        (batch, task, document) -> batch.delete(document)))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
 
-        Iterator<Task> iterator = tasksList.iterator();
-        while (iterator.hasNext()) {
-            Task task = iterator.next();
-            if (task.isOutdated() && task.isCompleted) {
-                deleteTask(task);
-                iterator.remove();
-            } else if (!task.isCompleted) {
-                tasksListFiltered.add(task);
+    /**
+     * Returns the selected tasks that are still indexed; tasks deleted elsewhere since they were selected are left out.
+     *
+     * @return A new list of the selected tasks.
+     */
+    private List<Task> getSelectedTasks() {
+        List<Task> tasks = new ArrayList<>();
+        for (String taskId : tasksAdapter.getSelectedTaskIds()) {
+            Task task = taskIndex.get(taskId);
+            if (task != null) {
+                tasks.add(task);
             }
         }
+        return tasks;
+    }
 
-        updateTaskListUI(null, false);
-        showLoading(false, null);
+    /**
+     * Ends the selection and applies a write to every given task, in batches of BATCH_SIZE writes.
+     *
+     * @param tasks       The tasks to write.
+     * @param verb        The progressive verb describing the operation, e.g. "Deleting".
+     * @param doneMessage The message shown once every task is written, with a %d for their number, e.g. "Deleted %d tasks.".
+     * @param write       The write to apply to each task.
+     */
+    private void runBulkOperation(List<Task> tasks, String verb, String doneMessage, BulkWrite write) {
+        tasksAdapter.clearSelection();
+        if (tasks.isEmpty()) {
+            Utilities.showToast(getContext(), "No tasks to update.", Utilities.ToastType.INFO);
+            return;
+        }
+        isBulkOperationRunning = true;
+        commitBatch(tasks, 0, verb, doneMessage, write);
+    }
+
+    /**
+     * Commits the batch of tasks starting at the given position, then the next one once it is written.
+     * A failed batch stops the operation; the batches committed before it stay applied.
+     *
+     * @param tasks       The tasks to write.
+     * @param from        The position of the first task of the batch.
+     * @param verb        The progressive verb describing the operation.
+     * @param doneMessage The message shown once every task is written, with a %d for their number.
+     * @param write       The write to apply to each task.
+     */
+    private void commitBatch(List<Task> tasks, int from, String verb, String doneMessage, BulkWrite write) {
+        if (binding == null) {
+            isBulkOperationRunning = false; // The view is gone; the remaining tasks are left unchanged
+            return;
+        }
+
+        int to = Math.min(from + BATCH_SIZE, tasks.size());
+        showBulkProgress(String.format(Locale.getDefault(), "%s %d-%d of %d tasks...", verb, from + 1, to, tasks.size()));
+
+        WriteBatch batch = db.batch();
+        CollectionReference collection = tasksCollection();
+        for (Task task : tasks.subList(from, to)) {
+            write.apply(batch, task, collection.document(task.id));
+        }
+
+        batch.commit()
+                .addOnSuccessListener(unused -> {
+                    if (to < tasks.size()) {
+                        commitBatch(tasks, to, verb, doneMessage, write);
+                        return;
+                    }
+                    isBulkOperationRunning = false;
+                    if (binding != null) {
+                        updateBulkActionsUI(0);
+                        Utilities.showToast(getContext(), String.format(Locale.getDefault(), doneMessage, tasks.size()), Utilities.ToastType.SUCCESS);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    isBulkOperationRunning = false;
+                    if (binding != null) {
+                        updateBulkActionsUI(0);
+                        logCriticalError(String.format(Locale.getDefault(), "Failed after updating %d of %d tasks.", from, tasks.size()), e);
+                    }
+                });
+    }
+
+    /**
+     * Shows the bulk actions while tasks are selected, with the number of selected tasks.
+     *
+     * @param selectedCount The number of selected tasks.
+     */
+    private void updateBulkActionsUI(int selectedCount) {
+        if (isBulkOperationRunning) {
+            return; // The bulk actions show the progress of the running operation
+        }
+        setBulkButtonsEnabled(true);
+        binding.layoutBulkActions.setVisibility(selectedCount > 0 ? View.VISIBLE : View.GONE);
+        binding.textSelectionCount.setText(String.format(Locale.getDefault(), "%d selected", selectedCount));
+    }
+
+    /**
+     * Shows the progress of the running bulk operation in place of the selection count.
+     *
+     * @param message The progress message.
+     */
+    private void showBulkProgress(String message) {
+        setBulkButtonsEnabled(false);
+        binding.layoutBulkActions.setVisibility(View.VISIBLE);
+        binding.textSelectionCount.setText(message);
+    }
+
+    /**
+     * Enables or disables the bulk action buttons.
+     *
+     * @param isEnabled Whether the buttons are enabled.
+     */
+    private void setBulkButtonsEnabled(boolean isEnabled) {
+        binding.buttonBulkComplete.setEnabled(isEnabled);
+        binding.buttonBulkReschedule.setEnabled(isEnabled);
+        binding.buttonBulkDelete.setEnabled(isEnabled);
+        binding.buttonCancelSelection.setEnabled(isEnabled);
+    }
+
+    /**
+     * Shows the tasks due on the selected date, looked up in the date index.
+     *
+     * @param dayKey The yyyyMMdd key of the date selected by the user.
+     */
+    private void filterTasksByDate(int dayKey) {
+        selectedDayKey = dayKey;
+        listenForMonth(dayKey); // The month listener shows the day's tasks once it delivers them
+        updateTaskListUI(taskIndex.getTasksOn(dayKey), TaskIndex.formatDayKey(dayKey), true);
+    }
+
+    /**
+     * Shows all non-completed tasks, ordered by completion date.
+     */
+    private void showAllNonCompletedTasks() {
+        selectedDayKey = NO_DAY_SELECTED;
+        updateTaskListUI(taskIndex.getPendingTasks(), null, false);
+    }
+
+    /**
+     * Shows the tasks of the selected date, or all pending tasks if no date is selected, e.g. after a sync.
+     */
+    private void showSelectedTasks() {
+        if (selectedDayKey == NO_DAY_SELECTED) {
+            showAllNonCompletedTasks();
+        } else {
+            filterTasksByDate(selectedDayKey);
+        }
     }
 
     /**
      * Called when the view is destroyed.
-     * Cleans up binding references to avoid memory leaks.
+     * Removes the task listeners and cleans up binding references to avoid memory leaks.
      */
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (pendingTasksListener != null) {
+            pendingTasksListener.remove();
+        }
+        if (monthTasksListener != null) {
+            monthTasksListener.remove();
+        }
         binding = null;
     }
 }
\ No newline at end of file
@@ -15,9 +15,15 @@ import java.util.Locale;
 /**
  * Represents a conversation (chat) between multiple users.
  * Fields include chat details like ID, creator, participants, recent message, and creation date.
+ * A preview of the recent message is embedded in the chat so the chat list can render without extra reads.
  */
 public class Chat implements Serializable, Comparable<Chat> {
 
+    /**
+     * Maximum number of characters of a message kept in the recent message preview.
+     */
+    public static final int MAX_PREVIEW_LENGTH = 100;
+
     /**
      * Server-side timestamp for when the chat was created. Auto-assigned by Firestore.
      */
@@ -49,6 +55,36 @@ public class Chat implements Serializable, Comparable<Chat> {
     @PropertyName("recentMessageId")
     public String recentMessageId;
 
+    /**
+     * Snippet of the most recent message's content. Mutable field.
+     */
+    @PropertyName("recentMessageContent")
+    public String recentMessageContent;
+
+    /**
+     * ID of the user who sent the most recent message. Mutable field.
+     */
+    @PropertyName("recentMessageSenderId")
+    public String recentMessageSenderId;
+
+    /**
+     * Display name of the user who sent the most recent message. Mutable field.
+     */
+    @PropertyName("recentMessageSenderName")
+    public String recentMessageSenderName;
+
+    /**
+     * Avatar version of the user who sent the most recent message, or 0 if they have none. Mutable field.
+     */
+    @PropertyName("recentMessageSenderAvatarVersion")
+    public long recentMessageSenderAvatarVersion;
+
+    /**
+     * Server-side timestamp for when the most recent message was sent. Mutable field.
+     */
+    @PropertyName("recentMessageSentDate")
+    public Date recentMessageSentDate;
+
     /**
      * Default constructor required for Firestore serialization/deserialization.
      * Initializes all fields to null or empty values.
@@ -59,6 +95,11 @@ public class Chat implements Serializable, Comparable<Chat> {
         creatorId = "";
         userIdList = new ArrayList<>();
         recentMessageId = "";
+        recentMessageContent = "";
+        recentMessageSenderId = "";
+        recentMessageSenderName = "";
+        recentMessageSenderAvatarVersion = 0;
+        recentMessageSentDate = null;
     }
 
     /**
@@ -74,6 +115,11 @@ public class Chat implements Serializable, Comparable<Chat> {
         this.creatorId = validateCreatorId(creatorId);
         this.userIdList = validateUserIdList(userIdList);
         this.recentMessageId = validateRecentMessageId(recentMessageId);
+        this.recentMessageContent = "";
+        this.recentMessageSenderId = "";
+        this.recentMessageSenderName = "";
+        this.recentMessageSenderAvatarVersion = 0;
+        this.recentMessageSentDate = null;
         this.createdDate = null; // Auto-assigned by Firestore
     }
 
@@ -142,6 +188,23 @@ public class Chat implements Serializable, Comparable<Chat> {
         return recentMessageId.trim();
     }
 
+    /**
+     * Shortens message content to the snippet stored in the recent message preview.
+     *
+     * @param content The full message content.
+     * @return The content, cut to at most MAX_PREVIEW_LENGTH characters.
+     */
+    public static String toPreviewSnippet(String content) {
+        if (content == null) {
+            return "";
+        }
+        String trimmed = content.trim();
+        if (trimmed.length() <= MAX_PREVIEW_LENGTH) {
+            return trimmed;
+        }
+        return trimmed.substring(0, MAX_PREVIEW_LENGTH - 1) + "\u2026";
+    }
+
     // ==================== OVERRIDDEN METHODS ====================
 
     /**
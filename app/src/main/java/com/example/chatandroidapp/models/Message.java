@@ -74,6 +74,24 @@ public class Message implements Serializable, Comparable<Message> {
         this.sentDate = null; // Auto-assigned by Firestore
     }
 
+    /**
+     * Parameterized constructor to restore a Message that was already sent, e.g. from the local message store.
+     *
+     * @param id       The unique identifier for the message.
+     * @param chatId   The ID of the chat this message belongs to.
+     * @param senderId The ID of the user who sent the message.
+     * @param content  The content of the message.
+     * @param sentDate The server-assigned date when the message was sent.
+     * @throws IllegalArgumentException If any of the provided parameters are invalid.
+     */
+    public Message(String id, String chatId, String senderId, String content, Date sentDate) throws IllegalArgumentException {
+        this.id = validateId(id);
+        this.chatId = validateChatId(chatId);
+        this.senderId = validateSenderId(senderId);
+        this.content = validateContent(content);
+        this.sentDate = sentDate;
+    }
+
     // ==================== VALIDATION METHODS ====================
 
     /**
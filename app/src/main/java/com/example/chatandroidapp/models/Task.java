@@ -2,20 +2,31 @@ package com.example.chatandroidapp.models;
 
 import androidx.annotation.NonNull;
 
+import com.example.chatandroidapp.utilities.Utilities;
 import com.google.firebase.firestore.PropertyName;
 import com.google.firebase.firestore.ServerTimestamp;
 
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
 
 /**
  * Represents a Task in the application, including attributes for title, description,
  * user association, completion status, and timestamps for creation and completion.
+ * The completion date and time are kept both as the strings shown to the user and as the typed dueAt,
+ * which Firestore can range-query and the client can sort without parsing.
  */
 public class Task implements Serializable {
 
+    /**
+     * Number of whole days after its creation that a task becomes outdated.
+     */
+    public static final int OUTDATED_AFTER_DAYS = 90;
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
     /**
      * The unique identifier for the task (Firestore Document ID).
      */
@@ -65,6 +76,13 @@ public class Task implements Serializable {
     @PropertyName("completionTime")
     public String completionTime;
 
+    /**
+     * The moment by which the task should be completed, in the device's time zone when it was set.
+     * Derived from completionDate and completionTime; null for tasks created before it was introduced.
+     */
+    @PropertyName("dueAt")
+    public Date dueAt;
+
     /**
      * Default constructor required for Firestore serialization/deserialization.
      * Assigns default values to final fields.
@@ -92,6 +110,7 @@ public class Task implements Serializable {
         this.description = description;
         this.completionDate = completionDate;
         this.completionTime = completionTime;
+        this.dueAt = toDueAt(completionDate, completionTime);
         this.isCompleted = false;
         this.createdDate = new Date();
     }
@@ -105,12 +124,56 @@ public class Task implements Serializable {
         if (createdDate == null) {
             return false;
         }
+        return !createdDate.after(getOutdatedCutoff());
+    }
 
-        long currentTime = System.currentTimeMillis();
-        long taskAgeInMillis = currentTime - createdDate.getTime();
-        long taskAgeInDays = taskAgeInMillis / (1000 * 60 * 60 * 24);
+    /**
+     * Combines a completion date and time into the moment the task is due, in the device's time zone.
+     *
+     * Digits of any script are accepted, since older tasks were formatted in the device's locale.
+     *
+     * @param completionDate The completion date, as yyyy-MM-dd.
+     * @param completionTime The completion time, as HH:mm; a missing or malformed time means midnight.
+     * @return The due moment, or null if the date is missing or malformed.
+     */
+    public static Date toDueAt(String completionDate, String completionTime) {
+        if (completionDate == null || completionDate.length() != 10
+                || completionDate.charAt(4) != '-' || completionDate.charAt(7) != '-') {
+            return null;
+        }
+        int year = Utilities.parseDigits(completionDate, 0, 4);
+        int month = Utilities.parseDigits(completionDate, 5, 7);
+        int day = Utilities.parseDigits(completionDate, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.setLenient(false);
+        calendar.set(year, month - 1, day);
+        if (completionTime != null && completionTime.length() == 5 && completionTime.charAt(2) == ':') {
+            int hour = Utilities.parseDigits(completionTime, 0, 2);
+            int minute = Utilities.parseDigits(completionTime, 3, 5);
+            if (hour >= 0 && minute >= 0) {
+                calendar.set(Calendar.HOUR_OF_DAY, hour);
+                calendar.set(Calendar.MINUTE, minute);
+            }
+        }
+        try {
+            return calendar.getTime();
+        } catch (IllegalArgumentException e) {
+            return null; // E.g. a day that does not exist in the month
+        }
+    }
 
-        return taskAgeInDays > 90;
+    /**
+     * Returns the creation date at or before which a task is outdated, i.e. more than 90 whole days ago.
+     *
+     * @return The cutoff date.
+     */
+    public static Date getOutdatedCutoff() {
+        return new Date(System.currentTimeMillis() - (OUTDATED_AFTER_DAYS + 1) * DAY_MILLIS);
     }
 
     @NonNull
@@ -11,16 +11,17 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 
 import com.example.chatandroidapp.activities.SignUpActivity;
+import com.example.chatandroidapp.utilities.ImageProcessor;
 import com.google.firebase.firestore.PropertyName;
 import com.google.firebase.firestore.ServerTimestamp;
 
-import java.io.InputStream;
 import java.io.Serializable;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
@@ -48,10 +49,18 @@ public class User implements Serializable {
 
     /**
      * Base64 encoded string of the user's profile image.
+     * Only set on accounts created before avatars moved to the AvatarStore; new writes leave it empty.
      */
     @PropertyName("image")
     public String image = "";
 
+    /**
+     * Version of the user's avatar in the AvatarStore, or 0 if the user has none.
+     * Changes on every upload, so clients can cache an avatar once per version.
+     */
+    @PropertyName("avatarVersion")
+    public long avatarVersion = 0;
+
     /**
      * User's phone number.
      */
@@ -89,6 +98,14 @@ public class User implements Serializable {
     @PropertyName("createdDate")
     public Date createdDate = null;
 
+    /**
+     * Server-side timestamp of the last change to the fields shown in the contact directory.
+     * Set on creation and on every profile, phone or avatar update, so clients can sync only changed users.
+     */
+    @ServerTimestamp
+    @PropertyName("updatedAt")
+    public Date updatedAt = null;
+
     /**
      * Default constructor required for Firestore serialization/deserialization.
      */
@@ -106,30 +123,6 @@ public class User implements Serializable {
 
     // --- IMAGE HANDLING FUNCTIONS ---
 
-    /**
-     * Encodes a Bitmap image to a Base64 string after resizing and compressing it.
-     *
-     * @param bitmap The Bitmap image to encode.
-     * @return A Base64 encoded string representation of the image.
-     */
-    public static String encodeImage(Bitmap bitmap) {
-        // Define the desired width for the preview image
-        int previewWidth = 150;
-        // Calculate the height to maintain the aspect ratio
-        int previewHeight = bitmap.getHeight() * previewWidth / bitmap.getWidth();
-
-        // Create a scaled bitmap for the preview
-        Bitmap previewBitmap = Bitmap.createScaledBitmap(bitmap, previewWidth, previewHeight, false);
-        java.io.ByteArrayOutputStream byteArrayOutputStream = new java.io.ByteArrayOutputStream();
-
-        // Compress the bitmap into JPEG format with 50% quality
-        previewBitmap.compress(Bitmap.CompressFormat.JPEG, 50, byteArrayOutputStream);
-        byte[] bytes = byteArrayOutputStream.toByteArray();
-
-        // Encode the byte array into a Base64 string
-        return Base64.encodeToString(bytes, Base64.DEFAULT);
-    }
-
     /**
      * Decodes a Base64-encoded string into a Bitmap image.
      *
@@ -340,17 +333,27 @@ public class User implements Serializable {
         }
 
         /**
-         * Handles the image selection result, decodes the image, and passes it to the callback.
+         * Handles the image selection result, decodes a downsampled copy of the image in the background,
+         * and passes it to the callback.
          *
          * @param imageUri The URI of the selected image.
          */
         private void handleImageSelection(Uri imageUri) {
-            try (InputStream inputStream = fragment.requireContext().getContentResolver().openInputStream(imageUri)) {
-                Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-                callback.onImageSelected(bitmap);
-            } catch (Exception e) {
+            if (imageUri == null) {
                 callback.onImageSelectionFailed("Failed to load the selected image.");
+                return;
             }
+            ImageProcessor.processProfileImage(fragment.requireContext(), imageUri, new ImageProcessor.OnImageProcessedListener() {
+                @Override
+                public void onImageProcessed(@NonNull Bitmap preview, @NonNull Map<Integer, byte[]> variants) {
+                    callback.onImageSelected(preview);
+                }
+
+                @Override
+                public void onImageProcessingFailed(@NonNull Exception e) {
+                    callback.onImageSelectionFailed("Failed to load the selected image.");
+                }
+            });
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.example.chatandroidapp.utilities;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class holds the application-wide executors used to move work off the main thread
+ * and to deliver results back to it.
+ *
+ * <p>Uses the Singleton pattern so every component shares the same threads.</p>
+ */
+public class AppExecutors {
+    private static volatile AppExecutors instance; // Volatile for thread-safe singleton
+
+    /**
+     * Single-threaded executor for local database and file access, which keeps writes ordered.
+     */
+    private final ExecutorService diskIO;
+
+    /**
+     * Small thread pool for CPU-bound work such as image decoding, kept apart so it never delays disk access.
+     */
+    private final ExecutorService computation;
+
+    /**
+     * Executor that runs tasks on the main (UI) thread.
+     */
+    private final Executor mainThread;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     */
+    private AppExecutors() {
+        diskIO = Executors.newSingleThreadExecutor();
+        computation = Executors.newFixedThreadPool(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    /**
+     * Provides the Singleton instance of AppExecutors using double-checked locking for thread safety.
+     *
+     * @return The Singleton instance of AppExecutors.
+     */
+    public static AppExecutors getInstance() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the executor for local database and file access.
+     *
+     * @return The disk I/O executor.
+     */
+    @NonNull
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * Returns the executor for CPU-bound work such as image decoding.
+     *
+     * @return The computation executor.
+     */
+    @NonNull
+    public ExecutorService computation() {
+        return computation;
+    }
+
+    /**
+     * Returns the executor that runs tasks on the main thread.
+     *
+     * @return The main thread executor.
+     */
+    @NonNull
+    public Executor mainThread() {
+        return mainThread;
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.chatandroidapp.utilities;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.chatandroidapp.R;
+import com.example.chatandroidapp.database.AvatarStore;
+import com.example.chatandroidapp.models.User;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * AvatarCache shows profile images. Decoded bitmaps are kept in a memory-bounded LRU, so each distinct
+ * avatar is decoded once no matter how many rows show it, and decoding always happens off the main thread.
+ * Decodes requested for a view that is rebound before they finish are cancelled.
+ *
+ * <p>Avatars from the AvatarStore are loaded in the smallest size variant that covers the target view.
+ * They are keyed by user ID, avatar version and size and kept on disk as well, so each variant of a version
+ * is downloaded once. Legacy inline images are keyed by a SHA-1 digest of the encoded string, so two
+ * different images never share a key.</p>
+ *
+ * <p>Uses the Singleton pattern so every adapter shares the same cache. Must be used from the main thread.</p>
+ */
+public class AvatarCache {
+    private static final String TAG = "AVATAR_CACHE";
+    private static final String AVATAR_DIRECTORY = "avatars";
+
+    private static volatile AvatarCache instance; // Volatile for thread-safe singleton
+
+    /**
+     * Decoded bitmaps keyed by avatar version or image digest, bounded by their size in kilobytes.
+     */
+    private final LruCache<String, Bitmap> bitmaps;
+
+    /**
+     * Loads in flight keyed like the bitmaps.
+     */
+    private final Map<String, LoadRequest> pendingLoads = new HashMap<>();
+
+    /**
+     * The key each view currently waits for. Weak keys let recycled views be collected.
+     */
+    private final WeakHashMap<ImageView, String> boundKeys = new WeakHashMap<>();
+
+    /**
+     * Cache keys of legacy encoded images, so each image string is digested once. Weak keys let the
+     * strings be collected together with the users holding them.
+     */
+    private final WeakHashMap<String, String> legacyKeys = new WeakHashMap<>();
+
+    /**
+     * Directory holding downloaded avatars, one file per user, version and size.
+     */
+    private final File avatarDirectory;
+
+    /**
+     * Private constructor to enforce Singleton pattern.
+     * The cache uses an eighth of the memory available to the app.
+     *
+     * @param context The application context, used to locate the disk cache.
+     */
+    private AvatarCache(Context context) {
+        int maxKilobytes = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        bitmaps = new LruCache<String, Bitmap>(maxKilobytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+        avatarDirectory = new File(context.getCacheDir(), AVATAR_DIRECTORY);
+    }
+
+    /**
+     * Provides the Singleton instance of AvatarCache using double-checked locking for thread safety.
+     *
+     * @param context The context used to locate the disk cache.
+     * @return The Singleton instance of AvatarCache.
+     */
+    public static AvatarCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AvatarCache.class) {
+                if (instance == null) {
+                    instance = new AvatarCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Shows a user's avatar in the given view, from the AvatarStore if the user has a versioned avatar
+     * and from the legacy inline image otherwise.
+     *
+     * @param imageView The view to show the avatar in.
+     * @param user      The user whose avatar to show.
+     */
+    public void loadAvatar(@NonNull ImageView imageView, @NonNull User user) {
+        loadAvatar(imageView, user.id, user.avatarVersion, user.image);
+    }
+
+    /**
+     * Shows an avatar in the given view. The default profile picture is shown at once, and replaced
+     * by the avatar either immediately on a memory hit or once it has been loaded and decoded.
+     *
+     * @param imageView     The view to show the avatar in.
+     * @param userId        The ID of the user.
+     * @param avatarVersion The version of the user's avatar in the AvatarStore, or 0 if none.
+     * @param legacyImage   The legacy Base64-encoded image, used when there is no versioned avatar.
+     */
+    public void loadAvatar(@NonNull ImageView imageView, @Nullable String userId, long avatarVersion, @Nullable String legacyImage) {
+        if (avatarVersion > 0 && userId != null && !userId.isEmpty()) {
+            int size = AvatarEncoder.pickSize(imageView);
+            String key = userId + "@" + avatarVersion + "#" + size;
+            load(imageView, key, () -> loadVersionedAvatar(key, userId, avatarVersion, size));
+        } else if (legacyImage != null && !legacyImage.isEmpty()) {
+            String key = legacyKeyOf(legacyImage);
+            load(imageView, key, () -> decodeLegacyImage(key, legacyImage));
+        } else {
+            showDefault(imageView);
+        }
+    }
+
+    /**
+     * Shows the default profile picture in the given view and cancels any load it was waiting for.
+     *
+     * @param imageView The view to reset.
+     */
+    public void showDefault(@NonNull ImageView imageView) {
+        unbind(imageView);
+        imageView.setImageResource(R.drawable.ic_profile);
+    }
+
+    /**
+     * Shows the default picture, serves the key from memory if possible, and otherwise joins or starts a load.
+     *
+     * @param imageView The view to show the avatar in.
+     * @param key       The cache key of the avatar.
+     * @param task      The background work producing the bitmap; it must end by calling postLoaded.
+     */
+    private void load(ImageView imageView, String key, Runnable task) {
+        showDefault(imageView);
+
+        Bitmap cached = bitmaps.get(key);
+        if (cached != null) {
+            imageView.setImageBitmap(cached);
+            return;
+        }
+
+        boundKeys.put(imageView, key);
+        LoadRequest request = pendingLoads.get(key);
+        if (request == null) {
+            request = new LoadRequest();
+            pendingLoads.put(key, request);
+            request.future = AppExecutors.getInstance().computation().submit(task);
+        }
+        request.views.add(imageView);
+    }
+
+    /**
+     * Detaches a view from the load it was waiting for, cancelling the load if no other view needs it.
+     *
+     * @param imageView The view being rebound.
+     */
+    private void unbind(ImageView imageView) {
+        String previousKey = boundKeys.remove(imageView);
+        if (previousKey == null) {
+            return;
+        }
+        LoadRequest request = pendingLoads.get(previousKey);
+        if (request != null) {
+            request.views.remove(imageView);
+            if (request.views.isEmpty()) {
+                pendingLoads.remove(previousKey);
+                request.future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Delivers a finished load to the main thread.
+     *
+     * @param key    The cache key of the avatar.
+     * @param bitmap The decoded bitmap, or null if loading failed.
+     */
+    private void postLoaded(String key, @Nullable Bitmap bitmap) {
+        AppExecutors.getInstance().mainThread().execute(() -> onLoaded(key, bitmap));
+    }
+
+    /**
+     * Caches a finished load and shows it in every view still waiting for it.
+     *
+     * @param key    The cache key of the avatar.
+     * @param bitmap The decoded bitmap, or null if loading failed.
+     */
+    private void onLoaded(String key, @Nullable Bitmap bitmap) {
+        LoadRequest request = pendingLoads.remove(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmaps.put(key, bitmap);
+        if (request == null) {
+            return; // Every waiting view was rebound; keep the bitmap for the next bind
+        }
+        for (ImageView imageView : request.views) {
+            if (key.equals(boundKeys.get(imageView))) {
+                boundKeys.remove(imageView);
+                imageView.setImageBitmap(bitmap);
+            }
+        }
+    }
+
+    // --- BACKGROUND WORK ---
+
+    /**
+     * Decodes a versioned avatar variant from disk, downloading it from the AvatarStore first if it is not stored yet.
+     * Runs on the computation executor.
+     *
+     * @param key           The cache key of the avatar.
+     * @param userId        The ID of the user.
+     * @param avatarVersion The version of the avatar.
+     * @param size          The variant size.
+     */
+    private void loadVersionedAvatar(String key, String userId, long avatarVersion, int size) {
+        File file = avatarFile(userId, avatarVersion, size);
+        if (file.exists()) {
+            postLoaded(key, BitmapFactory.decodeFile(file.getPath()));
+            return;
+        }
+
+        AppExecutors.getInstance().mainThread().execute(() ->
+                AvatarStore.getInstance().fetchAvatar(userId, size, avatarVersion, imageBytes -> {
+                    if (imageBytes == null) {
+                        onLoaded(key, null);
+                        return;
+                    }
+                    AppExecutors.getInstance().computation().execute(() -> {
+                        storeAvatarFile(userId, avatarVersion, size, imageBytes);
+                        postLoaded(key, BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length));
+                    });
+                }));
+    }
+
+    /**
+     * Decodes a legacy inline image. Runs on the computation executor.
+     *
+     * @param key          The cache key of the image.
+     * @param encodedImage The Base64-encoded image.
+     */
+    private void decodeLegacyImage(String key, String encodedImage) {
+        Bitmap bitmap = null;
+        try {
+            bitmap = User.getBitmapFromEncodedString(encodedImage);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Failed to decode profile image", e);
+        }
+        postLoaded(key, bitmap);
+    }
+
+    /**
+     * Writes a downloaded avatar variant to disk, replacing the files of older versions of the same user.
+     * Nothing is written once a newer version is stored, so a late download never replaces newer files.
+     *
+     * @param userId        The ID of the user.
+     * @param avatarVersion The version of the avatar.
+     * @param size          The variant size.
+     * @param imageBytes    The encoded image bytes.
+     */
+    private void storeAvatarFile(String userId, long avatarVersion, int size, byte[] imageBytes) {
+        if (!avatarDirectory.exists() && !avatarDirectory.mkdirs()) {
+            return;
+        }
+        String userPrefix = userId + "_";
+        File[] userFiles = avatarDirectory.listFiles((directory, name) -> name.startsWith(userPrefix));
+        if (userFiles != null) {
+            for (File userFile : userFiles) {
+                if (versionOf(userFile, userPrefix) > avatarVersion) {
+                    return; // Superseded while downloading
+                }
+            }
+            for (File userFile : userFiles) {
+                if (versionOf(userFile, userPrefix) < avatarVersion) {
+                    userFile.delete();
+                }
+            }
+        }
+        try (FileOutputStream outputStream = new FileOutputStream(avatarFile(userId, avatarVersion, size))) {
+            outputStream.write(imageBytes);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to store avatar for userId: " + userId, e);
+        }
+    }
+
+    /**
+     * Reads the avatar version from the name of a disk cache file.
+     *
+     * @param file       The file, named by avatarFile().
+     * @param userPrefix The user ID followed by the separator.
+     * @return The version, or 0 if the name is malformed, so the file counts as outdated.
+     */
+    private static long versionOf(File file, String userPrefix) {
+        String name = file.getName();
+        int end = name.indexOf('_', userPrefix.length());
+        try {
+            return end != -1 ? Long.parseLong(name.substring(userPrefix.length(), end)) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the disk cache file of an avatar variant.
+     *
+     * @param userId        The ID of the user.
+     * @param avatarVersion The version of the avatar.
+     * @param size          The variant size.
+     * @return The file, which may not exist yet.
+     */
+    private File avatarFile(String userId, long avatarVersion, int size) {
+        return new File(avatarDirectory, userId + "_" + avatarVersion + "_" + size);
+    }
+
+    /**
+     * Returns the cache key of a legacy encoded image, a SHA-1 digest of the string computed once per string.
+     *
+     * @param encodedImage The Base64-encoded image.
+     * @return The cache key.
+     */
+    private String legacyKeyOf(String encodedImage) {
+        String key = legacyKeys.get(encodedImage);
+        if (key == null) {
+            key = "sha1:" + sha1Of(encodedImage);
+            legacyKeys.put(encodedImage, key);
+        }
+        return key;
+    }
+
+    /**
+     * Computes the SHA-1 digest of a string.
+     *
+     * @param text The string.
+     * @return The digest as a hexadecimal string.
+     * @throws RuntimeException If the SHA-1 algorithm is not available.
+     */
+    private static String sha1Of(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hexString = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hexString.append(String.format("%02x", b));
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-1 algorithm not available.", e);
+        }
+    }
+
+    /**
+     * A load in flight together with the views waiting for it.
+     */
+    private static class LoadRequest {
+        final Set<ImageView> views = new HashSet<>();
+        Future<?> future;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.chatandroidapp.utilities;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.util.Base64;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AvatarEncoder turns a profile picture into a set of square WebP variants, one per entry of SIZES,
+ * so each screen can download and decode the smallest image that covers its ImageView.
+ */
+public class AvatarEncoder {
+
+    /**
+     * Edge lengths in pixels of the encoded variants, in ascending order.
+     */
+    public static final int[] SIZES = {48, 96, 256};
+
+    /**
+     * Edge length of the largest variant, which is also the size source images are decoded to.
+     */
+    public static final int LARGEST_SIZE = SIZES[SIZES.length - 1];
+
+    /**
+     * WebP quality of the encoded variants.
+     */
+    private static final int QUALITY = 75;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private AvatarEncoder() {
+    }
+
+    /**
+     * Encodes a picture into every variant size. The picture is center-cropped to a square
+     * and scaled with filtering. Must be called off the main thread.
+     *
+     * @param source The picture to encode, at least roughly LARGEST_SIZE wide.
+     * @return The encoded WebP bytes keyed by size, in ascending order.
+     */
+    @NonNull
+    public static Map<Integer, byte[]> encode(@NonNull Bitmap source) {
+        int edge = Math.min(source.getWidth(), source.getHeight());
+        Bitmap square = Bitmap.createBitmap(source, (source.getWidth() - edge) / 2, (source.getHeight() - edge) / 2, edge, edge);
+
+        Map<Integer, byte[]> variants = new LinkedHashMap<>();
+        for (int size : SIZES) {
+            Bitmap scaled = Bitmap.createScaledBitmap(square, size, size, true);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            scaled.compress(webpFormat(), QUALITY, outputStream);
+            variants.put(size, outputStream.toByteArray());
+            if (scaled != square) {
+                scaled.recycle();
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Encodes image bytes as a single-line Base64 string, e.g. to keep a local copy in SharedPreferences.
+     *
+     * @param imageBytes The encoded image bytes.
+     * @return The Base64 string without line breaks.
+     */
+    @NonNull
+    public static String toBase64(@NonNull byte[] imageBytes) {
+        return Base64.encodeToString(imageBytes, Base64.NO_WRAP);
+    }
+
+    /**
+     * Picks the smallest variant size that covers the given view, or the largest one if none does.
+     * The size is taken from the laid-out view, or from its fixed layout size before the first layout.
+     *
+     * @param imageView The view the avatar will be shown in.
+     * @return One of SIZES.
+     */
+    public static int pickSize(@NonNull ImageView imageView) {
+        int target = Math.max(imageView.getWidth(), imageView.getHeight());
+        ViewGroup.LayoutParams layoutParams = imageView.getLayoutParams();
+        if (target <= 0 && layoutParams != null) {
+            target = Math.max(layoutParams.width, layoutParams.height); // MATCH_PARENT and WRAP_CONTENT are negative
+        }
+        if (target <= 0) {
+            return LARGEST_SIZE;
+        }
+        for (int size : SIZES) {
+            if (size >= target) {
+                return size;
+            }
+        }
+        return LARGEST_SIZE;
+    }
+
+    /**
+     * Returns the lossy WebP format of the running platform.
+     *
+     * @return The compress format.
+     */
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
+    }
+}
@@ -11,15 +11,29 @@ public class Constants {
     public static final String KEY_COLLECTION_USERS = "Users";
     public static final String KEY_COLLECTION_CHATS = "Chats";
     public static final String KEY_COLLECTION_MESSAGES = "Messages";
+    public static final String KEY_COLLECTION_AVATARS = "Avatars";
+    public static final String KEY_COLLECTION_TASKS = "Tasks";
 
     // User Fields
     public static final String KEY_FIRST_NAME = "firstName";
     public static final String KEY_LAST_NAME = "lastName";
     public static final String KEY_IMAGE = "image";
+    public static final String KEY_AVATAR_VERSION = "avatarVersion";
     public static final String KEY_PHONE = "phone";
     public static final String KEY_EMAIL = "email";
     public static final String KEY_FCM_TOKEN = "fcmToken";
+    public static final String KEY_UPDATED_AT = "updatedAt";
+
+    // Task Fields
+    public static final String KEY_IS_COMPLETED = "isCompleted";
+    public static final String KEY_CREATED_DATE = "createdDate";
+    public static final String KEY_DUE_AT = "dueAt";
 
     // General Keys
     public static final String KEY_ID = "id";
+    public static final String KEY_LAST_TASK_CLEANUP = "lastTaskCleanup";
+    public static final String KEY_LAST_CONTACTS_RECONCILE = "lastContactsReconcile";
+    public static final String KEY_DUE_AT_MIGRATED_USER = "dueAtMigratedUser";
+    public static final String KEY_PROFILE_MIGRATED_USER = "profileMigratedUser";
+    public static final String KEY_PREVIEWS_BACKFILLED_USER = "previewsBackfilledUser";
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.example.chatandroidapp.utilities;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * ImageProcessor turns a picked image into a profile picture in the background.
+ * It reads the image bounds first and decodes with an inSampleSize close to the largest avatar size,
+ * so a full-resolution camera photo is never held in memory, then encodes the avatar variants off the main thread.
+ */
+public class ImageProcessor {
+
+    /**
+     * Callback delivering the processed profile picture on the main thread.
+     */
+    public interface OnImageProcessedListener {
+        /**
+         * Called when the image was decoded and encoded successfully.
+         *
+         * @param preview  The downsampled bitmap, suitable for display.
+         * @param variants The encoded WebP avatar variants keyed by size, from AvatarEncoder.
+         */
+        void onImageProcessed(@NonNull Bitmap preview, @NonNull Map<Integer, byte[]> variants);
+
+        /**
+         * Called when the image could not be read or decoded.
+         *
+         * @param e The cause of the failure.
+         */
+        void onImageProcessingFailed(@NonNull Exception e);
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ImageProcessor() {
+    }
+
+    /**
+     * Decodes and encodes the image behind the given URI on a background thread.
+     *
+     * @param context  The context used to open the image.
+     * @param imageUri The URI of the picked image.
+     * @param listener The listener notified on the main thread.
+     */
+    public static void processProfileImage(@NonNull Context context, @NonNull Uri imageUri, @NonNull OnImageProcessedListener listener) {
+        ContentResolver contentResolver = context.getApplicationContext().getContentResolver();
+        AppExecutors executors = AppExecutors.getInstance();
+
+        executors.computation().execute(() -> {
+            try {
+                Bitmap preview = decodeSampledBitmap(contentResolver, imageUri, AvatarEncoder.LARGEST_SIZE);
+                Map<Integer, byte[]> variants = AvatarEncoder.encode(preview);
+                executors.mainThread().execute(() -> listener.onImageProcessed(preview, variants));
+            } catch (Exception e) {
+                executors.mainThread().execute(() -> listener.onImageProcessingFailed(e));
+            }
+        });
+    }
+
+    /**
+     * Decodes an image at the largest power-of-two sample size that keeps its shorter edge at least the target size.
+     *
+     * @param contentResolver The resolver used to open the image.
+     * @param imageUri        The URI of the image.
+     * @param targetSize      The edge length the image will be scaled to.
+     * @return The downsampled bitmap.
+     * @throws IOException If the image cannot be read or decoded.
+     */
+    private static Bitmap decodeSampledBitmap(ContentResolver contentResolver, Uri imageUri, int targetSize) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+
+        // First pass: read only the dimensions
+        options.inJustDecodeBounds = true;
+        try (InputStream inputStream = openInputStream(contentResolver, imageUri)) {
+            BitmapFactory.decodeStream(inputStream, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Unsupported image format: " + imageUri);
+        }
+
+        // Second pass: decode straight to roughly the target size
+        options.inSampleSize = calculateInSampleSize(Math.min(options.outWidth, options.outHeight), targetSize);
+        options.inJustDecodeBounds = false;
+        try (InputStream inputStream = openInputStream(contentResolver, imageUri)) {
+            Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+            if (bitmap == null) {
+                throw new IOException("Failed to decode image: " + imageUri);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Calculates the largest power-of-two sample size that keeps the decoded edge at or above the target.
+     *
+     * @param edge       The full length of the image's shorter edge.
+     * @param targetSize The desired minimum edge length.
+     * @return The sample size to decode with.
+     */
+    private static int calculateInSampleSize(int edge, int targetSize) {
+        int inSampleSize = 1;
+        while (edge / (inSampleSize * 2) >= targetSize) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Opens an input stream for the image, failing if the provider returns none.
+     *
+     * @param contentResolver The resolver used to open the image.
+     * @param imageUri        The URI of the image.
+     * @return The opened stream.
+     * @throws FileNotFoundException If the image cannot be opened.
+     */
+    private static InputStream openInputStream(ContentResolver contentResolver, Uri imageUri) throws FileNotFoundException {
+        InputStream inputStream = contentResolver.openInputStream(imageUri);
+        if (inputStream == null) {
+            throw new FileNotFoundException("Unable to open image: " + imageUri);
+        }
+        return inputStream;
+    }
+}
@@ -116,6 +116,46 @@ public class Utilities {
         return formatter.format(date);
     }
 
+    /**
+     * Derives a stable 64-bit RecyclerView item ID from a Firestore document ID.
+     * Uses FNV-1a hashing so the same document always maps to the same item ID across snapshots.
+     *
+     * @param documentId The Firestore document ID.
+     * @return A stable item ID, or RecyclerView.NO_ID (-1) if the document ID is null.
+     */
+    public static long toStableId(String documentId) {
+        if (documentId == null) {
+            return -1L;
+        }
+        long hash = 0xcbf29ce484222325L; // FNV-1a 64-bit offset basis
+        for (int i = 0; i < documentId.length(); i++) {
+            hash ^= documentId.charAt(i);
+            hash *= 0x100000001b3L; // FNV-1a 64-bit prime
+        }
+        return hash == -1L ? 0L : hash;
+    }
+
+    /**
+     * Parses a run of decimal digits, including non-ASCII ones a localized formatter may have written,
+     * e.g. the Arabic-Indic digits of dates stored before they were formatted with Locale.ROOT.
+     *
+     * @param text  The text.
+     * @param start The index of the first digit.
+     * @param end   The index after the last digit.
+     * @return The value, or -1 if a character is not a digit.
+     */
+    public static int parseDigits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), 10);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
     /**
      * Enum representing different types of Toast messages.
      */
@@ -0,0 +1,101 @@
+package com.example.chatandroidapp.database;
+
+import com.example.chatandroidapp.models.User;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the matching and ranking of ContactSearchIndex.
+ */
+public class ContactSearchIndexTest {
+    private User michael;
+    private User christopher;
+    private User jose;
+    private ContactSearchIndex index;
+
+    @Before
+    public void setUp() {
+        michael = contact("1", "Michael", "Scott", "michael.scott@example.com", "+1 (555) 010-0001");
+        christopher = contact("2", "Christopher", "Nolan", "cnolan@example.com", "+1 (555) 010-0002");
+        jose = contact("3", "José", "Álvarez", "jose@example.com", "");
+        index = ContactSearchIndex.build(Arrays.asList(michael, christopher, jose));
+    }
+
+    @Test
+    public void search_matchesPrefixesAndSubstrings() {
+        assertEquals(Collections.singletonList(michael), index.search("mich"));
+        assertEquals(Collections.singletonList(christopher), index.search("nolan"));
+        assertEquals(Collections.singletonList(christopher), index.search("stoph"));
+    }
+
+    @Test
+    public void search_ignoresCaseAndAccents() {
+        assertEquals(Collections.singletonList(jose), index.search("JOSE alvarez"));
+    }
+
+    @Test
+    public void search_matchesPhoneDigits() {
+        assertEquals(Collections.singletonList(christopher), index.search("555 010-0002"));
+    }
+
+    @Test
+    public void search_toleratesTransposition() {
+        assertEquals(Collections.singletonList(michael), index.search("mihcael"));
+        assertEquals(Collections.singletonList(michael), index.search("micheal"));
+        assertEquals(Collections.singletonList(michael), index.search("mci"));
+    }
+
+    @Test
+    public void search_toleratesTwoTyposInLongTerms() {
+        assertEquals(Collections.singletonList(christopher), index.search("christohper"));
+        assertEquals(Collections.singletonList(christopher), index.search("chrystophar"));
+    }
+
+    @Test
+    public void search_rejectsTooManyTypos() {
+        assertTrue(index.search("mxchxxl").isEmpty());
+        assertTrue(index.search("").isEmpty());
+    }
+
+    @Test
+    public void search_requiresEveryTerm() {
+        assertEquals(Collections.singletonList(michael), index.search("michael scott"));
+        assertTrue(index.search("michael nolan").isEmpty());
+    }
+
+    @Test
+    public void search_ranksExactMatchesFirst() {
+        User chris = contact("4", "Chris", "Evans", "", "");
+        index.add(Collections.singletonList(chris));
+        assertEquals(Arrays.asList(chris, christopher), index.search("chris"));
+    }
+
+    @Test
+    public void add_indexesAppendedContacts() {
+        ContactSearchIndex incremental = ContactSearchIndex.build(new ArrayList<>());
+        assertTrue(incremental.search("michael").isEmpty());
+
+        incremental.add(Collections.singletonList(michael));
+        incremental.add(Arrays.asList(christopher, jose));
+        assertEquals(Collections.singletonList(michael), incremental.search("mihcael"));
+        assertEquals(Collections.singletonList(christopher), incremental.search("christohper"));
+        assertEquals(Collections.singletonList(jose), incremental.search("jose"));
+    }
+
+    private static User contact(String id, String firstName, String lastName, String email, String phone) {
+        User user = new User(id);
+        user.firstName = firstName;
+        user.lastName = lastName;
+        user.email = email;
+        user.phone = phone;
+        return user;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.chatandroidapp.database;
+
+import com.example.chatandroidapp.models.Task;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the day keys and buckets of TaskIndex.
+ */
+public class TaskIndexTest {
+
+    @Test
+    public void dayKey_usesZeroBasedMonths() {
+        assertEquals(20240105, TaskIndex.dayKey(2024, Calendar.JANUARY, 5));
+        assertEquals(20241231, TaskIndex.dayKey(2024, Calendar.DECEMBER, 31));
+    }
+
+    @Test
+    public void dayKeyOf_parsesCompletionDates() {
+        assertEquals(20240315, TaskIndex.dayKeyOf("2024-03-15"));
+        assertEquals(20240315, TaskIndex.dayKeyOf("٢٠٢٤-٠٣-١٥")); // Arabic-Indic digits
+    }
+
+    @Test
+    public void dayKeyOf_returnsUndatedForMalformedDates() {
+        assertEquals(TaskIndex.UNDATED, TaskIndex.dayKeyOf((String) null));
+        assertEquals(TaskIndex.UNDATED, TaskIndex.dayKeyOf(""));
+        assertEquals(TaskIndex.UNDATED, TaskIndex.dayKeyOf("2024/03/15"));
+        assertEquals(TaskIndex.UNDATED, TaskIndex.dayKeyOf("2024-3-15"));
+        assertEquals(TaskIndex.UNDATED, TaskIndex.dayKeyOf("2024-13-01"));
+        assertEquals(TaskIndex.UNDATED, TaskIndex.dayKeyOf("2024-00-10"));
+        assertEquals(TaskIndex.UNDATED, TaskIndex.dayKeyOf("2024-01-32"));
+        assertEquals(TaskIndex.UNDATED, TaskIndex.dayKeyOf("20a4-01-01"));
+    }
+
+    @Test
+    public void dayKeyOf_prefersDueAtOverCompletionDate() {
+        Task task = new Task();
+        task.completionDate = "2024-03-15";
+        task.dueAt = TaskIndex.startOfDay(20240401);
+        assertEquals(20240401, TaskIndex.dayKeyOf(task));
+
+        task.dueAt = null;
+        assertEquals(20240315, TaskIndex.dayKeyOf(task));
+    }
+
+    @Test
+    public void startOfDay_isMidnightOfTheDay() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(TaskIndex.startOfDay(20240229));
+        assertEquals(2024, calendar.get(Calendar.YEAR));
+        assertEquals(Calendar.FEBRUARY, calendar.get(Calendar.MONTH));
+        assertEquals(29, calendar.get(Calendar.DAY_OF_MONTH));
+        assertEquals(0, calendar.get(Calendar.HOUR_OF_DAY));
+        assertEquals(0, calendar.get(Calendar.MINUTE));
+    }
+
+    @Test
+    public void monthKeys_rollOverFromDecemberToJanuary() {
+        assertEquals(20241201, TaskIndex.monthKeyOf(20241231));
+        assertEquals(20250101, TaskIndex.nextMonthKeyOf(20241231));
+        assertEquals(20240201, TaskIndex.nextMonthKeyOf(20240131));
+        assertEquals(20241201, TaskIndex.nextMonthKeyOf(20241101));
+    }
+
+    @Test
+    public void formatDayKey_roundTripsThroughDayKeyOf() {
+        assertEquals("2024-03-05", TaskIndex.formatDayKey(20240305));
+        assertEquals(20240305, TaskIndex.dayKeyOf(TaskIndex.formatDayKey(20240305)));
+    }
+
+    @Test
+    public void put_refilesEditedTasksAndKeepsPendingSeparate() {
+        TaskIndex index = new TaskIndex();
+        Task late = task("late", "2024-03-15", "18:00");
+        Task early = task("early", "2024-03-15", "08:00");
+        Task undated = task("undated", "someday", null);
+        index.put(late);
+        index.put(early);
+        index.put(undated);
+
+        List<Task> day = index.getTasksOn(20240315);
+        assertEquals(2, day.size());
+        assertEquals("early", day.get(0).id);
+        assertEquals("late", day.get(1).id);
+
+        List<Task> pending = index.getPendingTasks();
+        assertEquals(3, pending.size());
+        assertEquals("undated", pending.get(2).id); // Undated tasks come after every real day
+
+        Task completed = task("late", "2024-03-16", "09:00");
+        completed.isCompleted = true;
+        index.put(completed);
+        assertEquals(1, index.getTasksOn(20240315).size());
+        assertEquals(1, index.getTasksOn(20240316).size());
+        assertEquals(2, index.getPendingTasks().size());
+
+        assertSame(completed, index.remove("late"));
+        assertNull(index.get("late"));
+        assertTrue(index.getTasksOn(20240316).isEmpty());
+    }
+
+    @Test
+    public void getTaskCounts_countsTheDaysOfTheRangeOnly() {
+        TaskIndex index = new TaskIndex();
+        index.put(task("a", "2024-03-01", "08:00"));
+        index.put(task("b", "2024-03-15", "08:00"));
+        index.put(task("c", "2024-03-15", "09:00"));
+        index.put(task("d", "2024-04-01", "08:00"));
+        index.put(task("e", "someday", null));
+
+        Map<Integer, Integer> counts = index.getTaskCounts(20240301, TaskIndex.nextMonthKeyOf(20240301));
+        assertEquals(2, counts.size());
+        assertEquals(Integer.valueOf(1), counts.get(20240301));
+        assertEquals(Integer.valueOf(2), counts.get(20240315));
+
+        index.remove("b");
+        assertEquals(Integer.valueOf(1), index.getTaskCounts(20240301, 20240401).get(20240315));
+        assertTrue(index.getTaskCounts(20240501, 20240601).isEmpty());
+    }
+
+    private static Task task(String id, String date, String time) {
+        return new Task(id, "user", id, "", date, time);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.chatandroidapp.models;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the due moment derived from a task's completion date and time.
+ */
+public class TaskTest {
+
+    @Test
+    public void toDueAt_combinesDateAndTime() {
+        assertDue(Task.toDueAt("2024-03-15", "14:30"), 2024, Calendar.MARCH, 15, 14, 30);
+    }
+
+    @Test
+    public void toDueAt_acceptsLocalizedDigits() {
+        Date dueAt = Task.toDueAt("٢٠٢٤-٠٣-١٥", "١٤:٣٠");
+        assertDue(dueAt, 2024, Calendar.MARCH, 15, 14, 30);
+    }
+
+    @Test
+    public void toDueAt_usesMidnightForMissingOrMalformedTimes() {
+        assertDue(Task.toDueAt("2024-03-15", null), 2024, Calendar.MARCH, 15, 0, 0);
+        assertDue(Task.toDueAt("2024-03-15", "2pm"), 2024, Calendar.MARCH, 15, 0, 0);
+    }
+
+    @Test
+    public void toDueAt_rejectsMalformedOrImpossibleDates() {
+        assertNull(Task.toDueAt(null, "10:00"));
+        assertNull(Task.toDueAt("15/03/2024", "10:00"));
+        assertNull(Task.toDueAt("2024-02-30", "10:00"));
+        assertNull(Task.toDueAt("2023-02-29", null));
+        assertNull(Task.toDueAt("2024-00-10", null));
+        assertNull(Task.toDueAt("2024-13-01", null));
+    }
+
+    @Test
+    public void toDueAt_acceptsLeapDays() {
+        assertDue(Task.toDueAt("2024-02-29", "23:59"), 2024, Calendar.FEBRUARY, 29, 23, 59);
+    }
+
+    private static void assertDue(Date dueAt, int year, int month, int day, int hour, int minute) {
+        assertNotNull(dueAt);
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(dueAt);
+        assertEquals(year, calendar.get(Calendar.YEAR));
+        assertEquals(month, calendar.get(Calendar.MONTH));
+        assertEquals(day, calendar.get(Calendar.DAY_OF_MONTH));
+        assertEquals(hour, calendar.get(Calendar.HOUR_OF_DAY));
+        assertEquals(minute, calendar.get(Calendar.MINUTE));
+    }
+}